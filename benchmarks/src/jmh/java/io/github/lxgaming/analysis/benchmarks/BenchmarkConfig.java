@@ -0,0 +1,178 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.benchmarks;
+
+import io.github.lxgaming.analysis.common.configuration.Config;
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
+import io.github.lxgaming.analysis.common.entity.Platform;
+
+import java.util.Collection;
+import java.util.Collections;
+
+public class BenchmarkConfig implements Config {
+    
+    private boolean reconstruct = false;
+    private int threads = 0;
+    private boolean compact = false;
+    private OutputFormat outputFormat = OutputFormat.JSON;
+    private OutputCompression outputCompression = OutputCompression.NONE;
+    private String version = "benchmark";
+    
+    @Override
+    public boolean isDebug() {
+        return false;
+    }
+    
+    @Override
+    public boolean isReconstruct() {
+        return reconstruct;
+    }
+    
+    @Override
+    public void setReconstruct(boolean reconstruct) {
+        this.reconstruct = reconstruct;
+    }
+    
+    @Override
+    public boolean isReverify() {
+        return false;
+    }
+    
+    @Override
+    public int getThreads() {
+        return threads;
+    }
+    
+    @Override
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+    
+    @Override
+    public int getDownloadThreads() {
+        return 1;
+    }
+    
+    @Override
+    public int getDownloadConnections() {
+        return 1;
+    }
+    
+    @Override
+    public int getManifestTtl() {
+        return 0;
+    }
+    
+    @Override
+    public int getConnectTimeout() {
+        return 0;
+    }
+    
+    @Override
+    public int getReadTimeout() {
+        return 0;
+    }
+    
+    @Override
+    public int getRetries() {
+        return 0;
+    }
+    
+    @Override
+    public boolean isCompact() {
+        return compact;
+    }
+    
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+    
+    @Override
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+    
+    public void setOutputFormat(OutputFormat outputFormat) {
+        this.outputFormat = outputFormat;
+    }
+    
+    @Override
+    public OutputCompression getOutputCompression() {
+        return outputCompression;
+    }
+    
+    public void setOutputCompression(OutputCompression outputCompression) {
+        this.outputCompression = outputCompression;
+    }
+    
+    @Override
+    public boolean isColumnar() {
+        return false;
+    }
+    
+    @Override
+    public Collection<String> getQueries() {
+        return Collections.emptyList();
+    }
+    
+    @Override
+    public int getQueryTimeout() {
+        return 0;
+    }
+    
+    @Override
+    public boolean isForceQueries() {
+        return false;
+    }
+    
+    @Override
+    public boolean isStatic() {
+        return false;
+    }
+    
+    @Override
+    public boolean isTrace() {
+        return false;
+    }
+    
+    @Override
+    public int getMappingLogInterval() {
+        return 0;
+    }
+    
+    @Override
+    public Platform getPlatform() {
+        return Platform.SERVER;
+    }
+    
+    @Override
+    public String getVersion() {
+        return version;
+    }
+    
+    @Override
+    public void setVersion(String version) {
+        this.version = version;
+    }
+    
+    @Override
+    public Collection<String> getVersions() {
+        return Collections.emptyList();
+    }
+}
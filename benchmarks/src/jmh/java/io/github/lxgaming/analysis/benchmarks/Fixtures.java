@@ -0,0 +1,228 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import io.github.lxgaming.analysis.common.util.MappingSnapshot;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates synthetic inputs shaped like the files the tool processes, every fixture is derived from a fixed seed so
+ * runs are comparable.
+ */
+public class Fixtures {
+    
+    public static final String PACKAGE = "net/minecraft/benchmark";
+    private static final long SEED = 0x4D41L;
+    
+    public static Path createDirectory() throws IOException {
+        return Files.createTempDirectory("minecraftanalysis-benchmark");
+    }
+    
+    public static void deleteDirectory(Path path) throws IOException {
+        if (path == null || !Files.exists(path)) {
+            return;
+        }
+        
+        try (Stream<Path> stream = Files.walk(path)) {
+            for (Path child : (Iterable<Path>) stream.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(child);
+            }
+        }
+    }
+    
+    public static Path createFile(Path path, int size) throws IOException {
+        Random random = new Random(SEED);
+        byte[] bytes = new byte[65536];
+        try (OutputStream outputStream = Files.newOutputStream(path)) {
+            for (int remaining = size; remaining > 0; remaining -= bytes.length) {
+                random.nextBytes(bytes);
+                outputStream.write(bytes, 0, Math.min(remaining, bytes.length));
+            }
+        }
+        
+        return path;
+    }
+    
+    /**
+     * Returns the obfuscated name for the provided index in the style of ProGuard ({@code a}, {@code b}, ...
+     * {@code aa}, {@code ab}, ...).
+     */
+    public static String getName(int index) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (int value = index; value >= 0; value = value / 26 - 1) {
+            stringBuilder.append((char) ('a' + value % 26));
+        }
+        
+        return stringBuilder.reverse().toString();
+    }
+    
+    /**
+     * Creates a {@link MappingSnapshot} mapping each obfuscated class, field and {@code (I)V} method to a name prefixed
+     * by {@code prefix}.
+     */
+    public static MappingSnapshot createSnapshot(Path path, int classes, int members, String prefix) throws IOException {
+        MappingSnapshot.Builder builder = new MappingSnapshot.Builder();
+        for (int classIndex = 0; classIndex < classes; classIndex++) {
+            MappingSnapshot.ClassBuilder classBuilder = builder.addClass(getName(classIndex), String.format("%s/%s_%d", PACKAGE, prefix, classIndex));
+            for (int memberIndex = 0; memberIndex < members; memberIndex++) {
+                classBuilder.addField(getName(memberIndex), String.format("%s_field_%d", prefix, memberIndex));
+                classBuilder.addMethod(getName(memberIndex), "(I)V", String.format("%s_method_%d", prefix, memberIndex));
+            }
+        }
+        
+        builder.write(path);
+        return MappingSnapshot.open(path);
+    }
+    
+    /**
+     * Creates an obfuscated jar and the ProGuard mapping that Reconstruct uses to deobfuscate it, every class has the
+     * specified number of {@code int} fields and {@code (I)V} methods.
+     */
+    public static void createJar(Path jarPath, Path mappingPath, int classes, int members) throws IOException {
+        try (JarOutputStream jarOutputStream = new JarOutputStream(Files.newOutputStream(jarPath));
+             BufferedWriter writer = Files.newBufferedWriter(mappingPath, StandardCharsets.UTF_8)) {
+            for (int classIndex = 0; classIndex < classes; classIndex++) {
+                String name = getName(classIndex);
+                writer.write(String.format("%s.Class%d -> %s:", PACKAGE.replace('/', '.'), classIndex, name));
+                writer.newLine();
+                
+                ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+                classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", null);
+                for (int memberIndex = 0; memberIndex < members; memberIndex++) {
+                    String memberName = getName(memberIndex);
+                    classWriter.visitField(Opcodes.ACC_PUBLIC, memberName, "I", null, null).visitEnd();
+                    writer.write(String.format("    int field%d -> %s", memberIndex, memberName));
+                    writer.newLine();
+                    
+                    MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, memberName, "(I)V", null, null);
+                    methodVisitor.visitCode();
+                    methodVisitor.visitInsn(Opcodes.RETURN);
+                    methodVisitor.visitMaxs(0, 0);
+                    methodVisitor.visitEnd();
+                    writer.write(String.format("    1:1:void method%d(int) -> %s", memberIndex, memberName));
+                    writer.newLine();
+                }
+                
+                classWriter.visitEnd();
+                jarOutputStream.putNextEntry(new JarEntry(name + ".class"));
+                jarOutputStream.write(classWriter.toByteArray());
+                jarOutputStream.closeEntry();
+            }
+        }
+    }
+    
+    /**
+     * Creates a version manifest in the format served by Mojang with the specified number of libraries.
+     */
+    public static String createManifest(int libraries) {
+        Random random = new Random(SEED);
+        JsonObject manifest = new JsonObject();
+        JsonObject arguments = new JsonObject();
+        JsonArray game = new JsonArray();
+        game.add("--username");
+        game.add("${auth_player_name}");
+        JsonObject demo = new JsonObject();
+        demo.add("rules", createRules("allow", null));
+        demo.addProperty("value", "--demo");
+        game.add(demo);
+        arguments.add("game", game);
+        arguments.add("jvm", new JsonArray());
+        manifest.add("arguments", arguments);
+        manifest.add("assetIndex", createArtifact(random, "assets/1.json"));
+        manifest.addProperty("assets", "1");
+        manifest.addProperty("complianceLevel", 1);
+        
+        JsonObject downloads = new JsonObject();
+        downloads.add("client", createArtifact(random, "client.jar"));
+        downloads.add("client_mappings", createArtifact(random, "client.txt"));
+        downloads.add("server", createArtifact(random, "server.jar"));
+        downloads.add("server_mappings", createArtifact(random, "server.txt"));
+        manifest.add("downloads", downloads);
+        manifest.addProperty("id", "benchmark");
+        
+        JsonArray libraryArray = new JsonArray();
+        for (int index = 0; index < libraries; index++) {
+            String path = String.format("com/example/library%d/1.0/library%d-1.0.jar", index, index);
+            JsonObject library = new JsonObject();
+            JsonObject libraryDownloads = new JsonObject();
+            libraryDownloads.add("artifact", createArtifact(random, path));
+            library.add("downloads", libraryDownloads);
+            library.addProperty("name", String.format("com.example:library%d:1.0", index));
+            if (index % 4 == 0) {
+                library.add("rules", createRules("allow", "osx"));
+            }
+            
+            libraryArray.add(library);
+        }
+        
+        manifest.add("libraries", libraryArray);
+        manifest.addProperty("mainClass", "net.minecraft.client.main.Main");
+        manifest.addProperty("minimumLauncherVersion", 21);
+        manifest.addProperty("releaseTime", "2021-01-01T00:00:00+00:00");
+        manifest.addProperty("time", "2021-01-01T00:00:00+00:00");
+        manifest.addProperty("type", "release");
+        return manifest.toString();
+    }
+    
+    private static JsonObject createArtifact(Random random, String path) {
+        byte[] hash = new byte[20];
+        random.nextBytes(hash);
+        
+        StringBuilder stringBuilder = new StringBuilder();
+        for (byte value : hash) {
+            stringBuilder.append(String.format("%02x", value));
+        }
+        
+        JsonObject artifact = new JsonObject();
+        artifact.addProperty("path", path);
+        artifact.addProperty("sha1", stringBuilder.toString());
+        artifact.addProperty("size", random.nextInt(1 << 24));
+        artifact.addProperty("url", "https://libraries.minecraft.net/" + path);
+        return artifact;
+    }
+    
+    private static JsonArray createRules(String action, String operatingSystem) {
+        JsonObject rule = new JsonObject();
+        rule.addProperty("action", action);
+        if (operatingSystem != null) {
+            JsonObject os = new JsonObject();
+            os.addProperty("name", operatingSystem);
+            rule.add("os", os);
+        }
+        
+        JsonArray rules = new JsonArray();
+        rules.add(rule);
+        return rules;
+    }
+}
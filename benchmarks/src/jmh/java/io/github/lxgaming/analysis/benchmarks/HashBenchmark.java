@@ -0,0 +1,61 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.benchmarks;
+
+import io.github.lxgaming.analysis.common.util.HashUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class HashBenchmark {
+    
+    @Param({"1048576", "67108864"})
+    private int size;
+    
+    private Path directory;
+    private Path path;
+    
+    @Setup
+    public void setup() throws IOException {
+        this.directory = Fixtures.createDirectory();
+        this.path = Fixtures.createFile(directory.resolve("file.bin"), size);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDirectory(directory);
+    }
+    
+    @Benchmark
+    public String sha1() throws IOException {
+        return HashUtils.sha1(path);
+    }
+}
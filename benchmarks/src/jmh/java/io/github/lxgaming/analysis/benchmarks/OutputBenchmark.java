@@ -0,0 +1,117 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.benchmarks;
+
+import com.google.gson.annotations.SerializedName;
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class OutputBenchmark {
+    
+    private static final String[] DIRECTIONS = {"clientbound", "serverbound"};
+    private static final String[] STATES = {"handshaking", "status", "login", "play"};
+    
+    @Param({"JSON", "NDJSON"})
+    private OutputFormat format;
+    
+    @Param({"NONE", "GZIP", "ZSTD"})
+    private OutputCompression compression;
+    
+    @Param({"10000"})
+    private int records;
+    
+    private Path directory;
+    private Analysis analysis;
+    private List<Packet> packets;
+    
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkConfig config = new BenchmarkConfig();
+        config.setOutputFormat(format);
+        config.setOutputCompression(compression);
+        
+        this.analysis = new Analysis(config);
+        this.directory = Fixtures.createDirectory();
+        analysis.setAnalysisPath(directory);
+        
+        this.packets = new ArrayList<>(records);
+        for (int index = 0; index < records; index++) {
+            packets.add(new Packet(index, String.format("net.minecraft.network.protocol.game.Packet%d", index), DIRECTIONS[index % DIRECTIONS.length], STATES[index % STATES.length]));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDirectory(directory);
+    }
+    
+    @Benchmark
+    public void write() {
+        // Write failures are only logged, which slf4j-nop discards
+        boolean written = analysis.write("benchmark", sink -> {
+            for (Packet packet : packets) {
+                sink.writeRecord(packet);
+            }
+        });
+        
+        if (!written) {
+            throw new IllegalStateException("Failed to write benchmark");
+        }
+    }
+    
+    private static class Packet {
+        
+        @SerializedName("id")
+        private final int id;
+        
+        @SerializedName("name")
+        private final String name;
+        
+        @SerializedName("direction")
+        private final String direction;
+        
+        @SerializedName("state")
+        private final String state;
+        
+        private Packet(int id, String name, String direction, String state) {
+            this.id = id;
+            this.name = name;
+            this.direction = direction;
+            this.state = state;
+        }
+    }
+}
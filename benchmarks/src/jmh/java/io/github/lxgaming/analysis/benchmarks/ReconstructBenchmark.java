@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.benchmarks;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.integration.reconstruct.ReconstructIntegration;
+import io.github.lxgaming.analysis.common.util.MappingCoverage;
+import io.github.lxgaming.analysis.common.util.MappingSnapshot;
+import io.github.lxgaming.reconstruct.common.Reconstruct;
+import io.github.lxgaming.reconstruct.common.bytecode.RcClass;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the mapping pass over classes produced by running Reconstruct against a synthetic obfuscated jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReconstructBenchmark {
+    
+    private static final int MEMBERS = 16;
+    
+    @Param({"2000"})
+    private int classes;
+    
+    @Param({"1", "0"})
+    private int threads;
+    
+    // Percentage of classes known to Yarn, the remainder take the unknown member path
+    @Param({"100", "0"})
+    private int yarnCoverage;
+    
+    private Path directory;
+    private ReconstructIntegration integration;
+    private List<RcClass> rcClasses;
+    private MappingSnapshot mcpMapping;
+    private MappingSnapshot yarnMapping;
+    
+    @Setup
+    public void setup() throws IOException {
+        BenchmarkConfig config = new BenchmarkConfig();
+        config.setThreads(threads);
+        
+        Analysis analysis = new Analysis(config);
+        this.directory = Fixtures.createDirectory();
+        analysis.setAnalysisPath(directory.resolve("analysis"));
+        
+        Path jarPath = directory.resolve("server.jar");
+        Path mappingPath = directory.resolve("server.txt");
+        Fixtures.createJar(jarPath, mappingPath, classes, MEMBERS);
+        
+        this.integration = new ReconstructIntegration();
+        integration.prepare();
+        integration.getConfig().setJarPath(jarPath);
+        integration.getConfig().setMappingPath(mappingPath);
+        integration.getConfig().setOutputPath(directory.resolve("server-deobf.jar"));
+        
+        Reconstruct reconstruct = new Reconstruct(integration.getConfig());
+        reconstruct.load();
+        
+        this.rcClasses = integration.getClasses();
+        this.mcpMapping = Fixtures.createSnapshot(directory.resolve("mapping.tsrg.bin"), classes, MEMBERS, "mcp");
+        this.yarnMapping = Fixtures.createSnapshot(directory.resolve("mapping.tiny.bin"), classes * yarnCoverage / 100, MEMBERS, "yarn");
+        
+        // Mappings must be applied before they can be written
+        integration.applyMappings(rcClasses, mcpMapping, yarnMapping);
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Reconstruct.getInstance().shutdown();
+        Fixtures.deleteDirectory(directory);
+    }
+    
+    @Benchmark
+    public MappingCoverage applyMappings() {
+        return integration.applyMappings(rcClasses, mcpMapping, yarnMapping);
+    }
+    
+    @Benchmark
+    public void writeMappings() {
+        // Write failures are only logged, which slf4j-nop discards
+        if (!integration.writeMappings(rcClasses)) {
+            throw new IllegalStateException("Failed to write mappings");
+        }
+    }
+}
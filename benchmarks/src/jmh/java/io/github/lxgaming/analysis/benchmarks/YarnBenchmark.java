@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.benchmarks;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.util.MappingSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class YarnBenchmark {
+    
+    private static final int MEMBERS = 32;
+    private static final int LOOKUPS = 1024;
+    
+    @Param({"1000", "10000"})
+    private int classes;
+    
+    private Path directory;
+    private MappingSnapshot mapping;
+    private String[] classNames;
+    private MappingSnapshot.ClassMapping[] classMappings;
+    private String[] methodNames;
+    
+    @Setup
+    public void setup() throws IOException {
+        new Analysis(new BenchmarkConfig());
+        this.directory = Fixtures.createDirectory();
+        this.mapping = Fixtures.createSnapshot(directory.resolve("mapping.tiny.bin"), classes, MEMBERS, "yarn");
+        
+        // Random lookups so the benchmark is not dominated by a single hot entry
+        Random random = new Random(classes);
+        this.classNames = new String[LOOKUPS];
+        this.classMappings = new MappingSnapshot.ClassMapping[LOOKUPS];
+        this.methodNames = new String[LOOKUPS];
+        for (int index = 0; index < LOOKUPS; index++) {
+            classNames[index] = Fixtures.getName(random.nextInt(classes));
+            classMappings[index] = mapping.getClass(classNames[index]);
+            methodNames[index] = Fixtures.getName(random.nextInt(MEMBERS));
+        }
+    }
+    
+    @TearDown
+    public void tearDown() throws IOException {
+        Fixtures.deleteDirectory(directory);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void getClassMapping(Blackhole blackhole) {
+        for (String className : classNames) {
+            blackhole.consume(mapping.getClass(className));
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void remapMethod(Blackhole blackhole) {
+        for (int index = 0; index < LOOKUPS; index++) {
+            blackhole.consume(classMappings[index].remapMethod(methodNames[index], "(I)V"));
+        }
+    }
+}
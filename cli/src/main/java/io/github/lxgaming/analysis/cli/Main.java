@@ -18,11 +18,16 @@ package io.github.lxgaming.analysis.cli;
 
 import com.beust.jcommander.JCommander;
 import io.github.lxgaming.analysis.cli.configuration.ConfigImpl;
+import io.github.lxgaming.analysis.cli.daemon.Daemon;
 import io.github.lxgaming.analysis.cli.util.ShutdownHook;
+import io.github.lxgaming.analysis.cli.util.WorkerPool;
 import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
 import org.apache.logging.log4j.core.config.Configurator;
 import org.fusesource.jansi.AnsiConsole;
 
+import java.nio.file.Path;
+
 public class Main {
     
     public static void main(String[] args) {
@@ -33,7 +38,8 @@ public class Main {
         }
         
         Analysis analysis = new Analysis(new ConfigImpl());
-        Runtime.getRuntime().addShutdownHook(new ShutdownHook());
+        ShutdownHook shutdownHook = new ShutdownHook();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
         
         Analysis.getInstance().getLogger().info("{} v{}", Analysis.NAME, Analysis.VERSION);
         Analysis.getInstance().getLogger().info("Authors: {}", Analysis.AUTHORS);
@@ -59,6 +65,43 @@ public class Main {
             Analysis.getInstance().getLogger().info("Debug mode disabled");
         }
         
-        analysis.load();
+        ConfigImpl config = (ConfigImpl) Analysis.getInstance().getConfig();
+        if (config.isDaemon()) {
+            Daemon daemon = new Daemon(config);
+            shutdownHook.registerDaemon(daemon);
+            if (!daemon.start()) {
+                Runtime.getRuntime().exit(1);
+            }
+            
+            return;
+        }
+        
+        boolean result = true;
+        if (config.getVersions() != null && !config.getVersions().isEmpty()) {
+            if (config.getWorkers() > 0) {
+                result = new WorkerPool(config, args).execute();
+            } else {
+                result = Analysis.loadAll(config);
+            }
+        } else {
+            result = analysis.load();
+        }
+        
+        if (config.getMetricsPath() != null) {
+            writeMetrics(config.getMetricsPath());
+        }
+        
+        if (!result) {
+            Runtime.getRuntime().exit(1);
+        }
+    }
+    
+    private static void writeMetrics(Path path) {
+        try {
+            MetricManager.write(path);
+            Analysis.getInstance().getLogger().info("Wrote {}", path.getFileName());
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while writing to {}", path, ex);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.cli;
+
+import com.beust.jcommander.JCommander;
+import io.github.lxgaming.analysis.cli.configuration.ConfigImpl;
+import io.github.lxgaming.analysis.cli.util.WorkerPool;
+import io.github.lxgaming.analysis.common.Analysis;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Child process of a {@link WorkerPool}, versions are received line by line on the standard input and a result is
+ * returned for each on the standard output.
+ */
+public class Worker {
+    
+    public static void main(String[] args) {
+        Thread.currentThread().setName("Worker Thread");
+        
+        // The standard output is reserved for the coordinator
+        PrintStream output = System.out;
+        System.setOut(System.err);
+        
+        ConfigImpl config = new ConfigImpl();
+        Analysis analysis = new Analysis(config);
+        
+        try {
+            JCommander.newBuilder()
+                    .addObject(config)
+                    .build()
+                    .parse(args);
+        } catch (Exception ex) {
+            analysis.getLogger().error("Encountered an error while parsing arguments", ex);
+            Runtime.getRuntime().exit(-1);
+            return;
+        }
+        
+        if (config.isDebug()) {
+            System.setProperty("analysis.logging.console.level", "DEBUG");
+            Configurator.reconfigure();
+        }
+        
+        boolean reconstruct = config.isReconstruct();
+        output.println(WorkerPool.READY + " " + getHeapUsage());
+        output.flush();
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null && !line.equals(WorkerPool.EXIT)) {
+                if (!line.startsWith(WorkerPool.ANALYSE + " ")) {
+                    Analysis.getInstance().getLogger().warn("Unknown command {}", line);
+                    continue;
+                }
+                
+                String version = line.substring(WorkerPool.ANALYSE.length() + 1);
+                boolean result = Analysis.loadVersion(config, version, reconstruct);
+                
+                // The version is last as it may contain spaces
+                output.println(WorkerPool.RESULT + " " + result + " " + getHeapUsage() + " " + version);
+                output.flush();
+            }
+        } catch (IOException ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while reading from coordinator", ex);
+        }
+        
+        // Threads leaked by Minecraft would otherwise keep the worker alive
+        LogManager.shutdown();
+        Runtime.getRuntime().halt(0);
+    }
+    
+    /**
+     * Reports the retained heap, a collection is requested first so that garbage from the previous version is not
+     * mistaken for growth.
+     */
+    private static long getHeapUsage() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
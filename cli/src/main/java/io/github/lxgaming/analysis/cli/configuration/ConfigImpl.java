@@ -18,8 +18,11 @@ package io.github.lxgaming.analysis.cli.configuration;
 
 import com.beust.jcommander.Parameter;
 import io.github.lxgaming.analysis.common.configuration.Config;
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
 import io.github.lxgaming.analysis.common.entity.Platform;
 
+import java.nio.file.Path;
 import java.util.List;
 
 public class ConfigImpl implements Config {
@@ -36,18 +39,120 @@ public class ConfigImpl implements Config {
     )
     private boolean reconstruct = false;
     
+    @Parameter(
+            names = {"-reverify", "--reverify"},
+            description = "Force hashing of previously verified files"
+    )
+    private boolean reverify = false;
+    
     @Parameter(
             names = {"-thread", "--thread", "-threads", "--threads"},
             description = "Performs deobfuscation asynchronously across the specified number of threads"
     )
     private int threads = 0;
     
+    @Parameter(
+            names = {"-download-threads", "--download-threads"},
+            description = "Number of threads used to download libraries"
+    )
+    private int downloadThreads = 8;
+    
+    @Parameter(
+            names = {"-download-connections", "--download-connections"},
+            description = "Maximum number of concurrent downloads per host"
+    )
+    private int downloadConnections = 4;
+    
+    @Parameter(
+            names = {"-manifest-ttl", "--manifest-ttl"},
+            description = "Number of seconds a cached manifest is used before it is revalidated"
+    )
+    private int manifestTtl = 60;
+    
+    @Parameter(
+            names = {"-connect-timeout", "--connect-timeout"},
+            description = "Number of seconds to wait for a connection to be established"
+    )
+    private int connectTimeout = 10;
+    
+    @Parameter(
+            names = {"-read-timeout", "--read-timeout"},
+            description = "Number of seconds to wait for data before a connection is considered dropped"
+    )
+    private int readTimeout = 30;
+    
+    @Parameter(
+            names = {"-retries", "--retries"},
+            description = "Number of attempts made for each request"
+    )
+    private int retries = 3;
+    
+    @Parameter(
+            names = {"-compact", "--compact"},
+            description = "Writes analysis output without indentation"
+    )
+    private boolean compact = false;
+    
+    @Parameter(
+            names = {"-format", "--format"},
+            description = "Analysis output format (Json / Ndjson)"
+    )
+    private OutputFormat outputFormat = OutputFormat.JSON;
+    
+    @Parameter(
+            names = {"-compression", "--compression"},
+            description = "Analysis output compression (None / Gzip / Zstd)"
+    )
+    private OutputCompression outputCompression = OutputCompression.NONE;
+    
+    @Parameter(
+            names = {"-columnar", "--columnar"},
+            description = "Additionally writes tabular results in a binary columnar format"
+    )
+    private boolean columnar = false;
+    
     @Parameter(
             names = {"-query", "--query", "-queries", "--queries"},
             description = "Queries to use during analysis"
     )
     private List<String> queries = null;
     
+    @Parameter(
+            names = {"-query-timeout", "--query-timeout"},
+            description = "Maximum number of seconds each query may run for (0 to disable)"
+    )
+    private int queryTimeout = 300;
+    
+    @Parameter(
+            names = {"-force-queries", "--force-queries"},
+            description = "Force queries to execute even if their results are cached"
+    )
+    private boolean forceQueries = false;
+    
+    @Parameter(
+            names = {"-static", "--static"},
+            description = "Analyses bytecode without bootstrapping Minecraft"
+    )
+    private boolean staticAnalysis = false;
+    
+    @Parameter(
+            names = {"-trace", "--trace"},
+            description = "Writes a Chrome trace of the analysis which can be opened in Perfetto"
+    )
+    private boolean trace = false;
+    
+    @Parameter(
+            names = {"-mapping-log-interval", "--mapping-log-interval"},
+            description = "Logs every nth unknown MCP or Yarn member, coverage is summarized either way (0 to disable)"
+    )
+    private int mappingLogInterval = 0;
+    
+    @Parameter(
+            names = {"-metrics", "--metrics"},
+            description = "Writes metrics in the Prometheus text format to the specified .prom file once finished"
+    )
+    private Path metricsPath = null;
+    
     @Parameter(
             names = {"-platform", "--platform"},
             description = "Minecraft platform (Client / Server)"
@@ -60,6 +165,66 @@ public class ConfigImpl implements Config {
     )
     private String version = null;
     
+    @Parameter(
+            names = {"-versions", "--versions"},
+            description = "Minecraft versions or inclusive ranges (from..to) to analyse in a single run"
+    )
+    private List<String> versions = null;
+    
+    @Parameter(
+            names = {"-workers", "--workers"},
+            description = "Analyses versions across the specified number of worker processes (0 to analyse in process)"
+    )
+    private int workers = 0;
+    
+    @Parameter(
+            names = {"-worker-versions", "--worker-versions"},
+            description = "Number of versions a worker process analyses before it is replaced"
+    )
+    private int workerVersions = 8;
+    
+    @Parameter(
+            names = {"-worker-heap-growth", "--worker-heap-growth"},
+            description = "Heap growth in megabytes after which a worker process is replaced (0 to disable)"
+    )
+    private int workerHeapGrowth = 512;
+    
+    @Parameter(
+            names = {"-worker-timeout", "--worker-timeout"},
+            description = "Time in seconds a worker process may spend on a single version before it is killed (0 to disable)"
+    )
+    private int workerTimeout = 1800;
+    
+    @Parameter(
+            names = {"-daemon", "--daemon"},
+            description = "Serves analysis results over a local HTTP API"
+    )
+    private boolean daemon = false;
+    
+    @Parameter(
+            names = {"-daemon-port", "--daemon-port"},
+            description = "Port the daemon listens on"
+    )
+    private int daemonPort = 8080;
+    
+    @Parameter(
+            names = {"-daemon-cache", "--daemon-cache"},
+            description = "Maximum number of megabytes of analysis results the daemon keeps in memory"
+    )
+    private int daemonCache = 256;
+    
+    @Parameter(
+            names = {"-daemon-token", "--daemon-token"},
+            description = "Token required as a bearer token by POST requests, POST requests are rejected if not set"
+    )
+    private String daemonToken = null;
+    
+    @Parameter(
+            names = {"-daemon-failure-ttl", "--daemon-failure-ttl"},
+            description = "Number of seconds a failed analysis is remembered before the daemon attempts it again"
+    )
+    private int daemonFailureTtl = 300;
+    
     @Override
     public boolean isDebug() {
         return debug;
@@ -75,6 +240,11 @@ public class ConfigImpl implements Config {
         this.reconstruct = reconstruct;
     }
     
+    @Override
+    public boolean isReverify() {
+        return reverify;
+    }
+    
     @Override
     public int getThreads() {
         return threads;
@@ -85,11 +255,90 @@ public class ConfigImpl implements Config {
         this.threads = threads;
     }
     
+    @Override
+    public int getDownloadThreads() {
+        return downloadThreads;
+    }
+    
+    @Override
+    public int getDownloadConnections() {
+        return downloadConnections;
+    }
+    
+    @Override
+    public int getManifestTtl() {
+        return manifestTtl;
+    }
+    
+    @Override
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+    
+    @Override
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+    
+    @Override
+    public int getRetries() {
+        return retries;
+    }
+    
+    @Override
+    public boolean isCompact() {
+        return compact;
+    }
+    
+    @Override
+    public OutputFormat getOutputFormat() {
+        return outputFormat;
+    }
+    
+    @Override
+    public OutputCompression getOutputCompression() {
+        return outputCompression;
+    }
+    
+    @Override
+    public boolean isColumnar() {
+        return columnar;
+    }
+    
     @Override
     public List<String> getQueries() {
         return queries;
     }
     
+    @Override
+    public int getQueryTimeout() {
+        return queryTimeout;
+    }
+    
+    @Override
+    public boolean isForceQueries() {
+        return forceQueries;
+    }
+    
+    @Override
+    public boolean isStatic() {
+        return staticAnalysis;
+    }
+    
+    @Override
+    public boolean isTrace() {
+        return trace;
+    }
+    
+    @Override
+    public int getMappingLogInterval() {
+        return mappingLogInterval;
+    }
+    
+    public Path getMetricsPath() {
+        return metricsPath;
+    }
+    
     @Override
     public Platform getPlatform() {
         return platform;
@@ -99,4 +348,50 @@ public class ConfigImpl implements Config {
     public String getVersion() {
         return version;
     }
+    
+    @Override
+    public void setVersion(String version) {
+        this.version = version;
+    }
+    
+    @Override
+    public List<String> getVersions() {
+        return versions;
+    }
+    
+    public int getWorkers() {
+        return workers;
+    }
+    
+    public int getWorkerVersions() {
+        return workerVersions;
+    }
+    
+    public int getWorkerHeapGrowth() {
+        return workerHeapGrowth;
+    }
+    
+    public int getWorkerTimeout() {
+        return workerTimeout;
+    }
+    
+    public boolean isDaemon() {
+        return daemon;
+    }
+    
+    public int getDaemonPort() {
+        return daemonPort;
+    }
+    
+    public int getDaemonCache() {
+        return daemonCache;
+    }
+    
+    public String getDaemonToken() {
+        return daemonToken;
+    }
+    
+    public int getDaemonFailureTtl() {
+        return daemonFailureTtl;
+    }
 }
\ No newline at end of file
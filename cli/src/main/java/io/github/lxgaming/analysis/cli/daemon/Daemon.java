@@ -0,0 +1,375 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.cli.daemon;
+
+import com.google.gson.JsonObject;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.lxgaming.analysis.cli.configuration.ConfigImpl;
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.integration.minecraft.MinecraftIntegration;
+import io.github.lxgaming.analysis.common.integration.minecraft.entity.Version;
+import io.github.lxgaming.analysis.common.integration.minecraft.entity.VersionList;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
+import io.github.lxgaming.analysis.common.util.Toolbox;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves analysis results over a local HTTP API, results are read from the analysis directory and kept in a least
+ * recently used cache bounded by size. Versions which have not been analysed are analysed on demand, a failed analysis
+ * is not attempted again until {@code --daemon-failure-ttl} has passed. Only version ids present in the version
+ * manifest are accepted.
+ *
+ * <ul>
+ *     <li>{@code GET /versions/<version>} - Build manifest</li>
+ *     <li>{@code GET /versions/<version>/protocol} - Protocol packets</li>
+ *     <li>{@code GET /versions/<version>/mappings/<obfuscated>} - Class mapping by obfuscated name</li>
+ *     <li>{@code POST /versions/<version>/analyse} - Analyses the version again, requires
+ *     {@code Authorization: Bearer <token>}</li>
+ *     <li>{@code GET /metrics} - Metrics in the Prometheus text format</li>
+ * </ul>
+ */
+public class Daemon {
+    
+    private final ConfigImpl config;
+    private final boolean reconstruct;
+    private final byte[] token;
+    private final Map<String, VersionData> cache;
+    private final Map<String, Long> failures;
+    private final Object analysisLock;
+    private long cacheSize;
+    private volatile Set<String> versionIds;
+    private volatile long versionIdsTime;
+    private HttpServer httpServer;
+    private ExecutorService executorService;
+    
+    public Daemon(ConfigImpl config) {
+        this.config = config;
+        this.reconstruct = config.isReconstruct();
+        this.token = config.getDaemonToken() != null ? config.getDaemonToken().getBytes(StandardCharsets.UTF_8) : null;
+        this.cache = new LinkedHashMap<>(16, 0.75F, true);
+        this.failures = new ConcurrentHashMap<>();
+        this.analysisLock = new Object();
+    }
+    
+    public boolean start() {
+        try {
+            this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), config.getDaemonPort()), 0);
+        } catch (IOException ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while binding to port {}", config.getDaemonPort(), ex);
+            return false;
+        }
+        
+        this.executorService = Executors.newFixedThreadPool(Math.max(Runtime.getRuntime().availableProcessors(), 2), Toolbox.newThreadFactory("Daemon Thread #%d"));
+        httpServer.createContext("/", this::handle);
+        httpServer.createContext("/metrics", this::handleMetrics);
+        httpServer.setExecutor(executorService);
+        httpServer.start();
+        Analysis.getInstance().getLogger().info("Listening on {}", httpServer.getAddress());
+        if (token == null) {
+            Analysis.getInstance().getLogger().warn("No daemon token configured, analyse requests will be rejected");
+        }
+        
+        return true;
+    }
+    
+    public void stop() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+        }
+        
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] segments = exchange.getRequestURI().getRawPath().split("/");
+            if (segments.length < 3 || !segments[0].isEmpty() || !segments[1].equals("versions")) {
+                sendError(exchange, 404, "Not Found");
+                return;
+            }
+            
+            // The version is used as a path, so anything other than a known id must be rejected before it is used
+            String version = URLDecoder.decode(segments[2], "UTF-8");
+            if (!isVersion(version)) {
+                sendError(exchange, 404, "Unknown version");
+                return;
+            }
+            
+            String method = exchange.getRequestMethod();
+            if (segments.length == 4 && segments[3].equals("analyse")) {
+                if (!method.equals("POST")) {
+                    sendError(exchange, 405, "Method Not Allowed");
+                    return;
+                }
+                
+                if (token == null) {
+                    sendError(exchange, 403, "Forbidden");
+                    return;
+                }
+                
+                if (!isAuthorized(exchange)) {
+                    exchange.getResponseHeaders().set("WWW-Authenticate", "Bearer");
+                    sendError(exchange, 401, "Unauthorized");
+                    return;
+                }
+                
+                VersionData versionData = analyse(version, true);
+                if (versionData == null) {
+                    sendError(exchange, 500, String.format("Failed to analyse %s", version));
+                    return;
+                }
+                
+                send(exchange, 200, versionData.getManifest());
+                return;
+            }
+            
+            if (!method.equals("GET")) {
+                sendError(exchange, 405, "Method Not Allowed");
+                return;
+            }
+            
+            VersionData versionData = getVersionData(version);
+            if (versionData == null) {
+                sendError(exchange, 404, String.format("Failed to analyse %s", version));
+                return;
+            }
+            
+            if (segments.length == 3) {
+                send(exchange, 200, versionData.getManifest());
+            } else if (segments.length == 4 && segments[3].equals("protocol")) {
+                send(exchange, versionData.getProtocol(), String.format("No protocol for %s", version));
+            } else if (segments.length == 5 && segments[3].equals("mappings")) {
+                String name = URLDecoder.decode(segments[4], "UTF-8");
+                send(exchange, versionData.getMapping(name), String.format("No mapping for %s in %s", name, version));
+            } else {
+                sendError(exchange, 404, "Not Found");
+            }
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while handling {}", exchange.getRequestURI(), ex);
+            sendError(exchange, 500, "Internal Server Error");
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Checks the version against the ids in the version manifest, the manifest is only reloaded for an unknown id and
+     * at most once every {@code --manifest-ttl} seconds.
+     */
+    private boolean isVersion(String version) {
+        Set<String> versionIds = this.versionIds;
+        if (versionIds != null && versionIds.contains(version)) {
+            return true;
+        }
+        
+        // The manifest is cached on disk by the analysis, so it is not reloaded while an analysis is running
+        synchronized (analysisLock) {
+            versionIds = this.versionIds;
+            if (versionIds != null && (versionIds.contains(version)
+                    || System.nanoTime() - versionIdsTime < TimeUnit.SECONDS.toNanos(config.getManifestTtl()))) {
+                return versionIds.contains(version);
+            }
+            
+            this.versionIdsTime = System.nanoTime();
+            VersionList versionList = MinecraftIntegration.getVersionList(false);
+            if (versionList != null) {
+                Set<String> ids = new HashSet<>();
+                for (Version versionEntry : versionList.getVersions()) {
+                    ids.add(versionEntry.getId());
+                }
+                
+                this.versionIds = Collections.unmodifiableSet(ids);
+            }
+            
+            return this.versionIds != null && this.versionIds.contains(version);
+        }
+    }
+    
+    private boolean isAuthorized(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return false;
+        }
+        
+        return MessageDigest.isEqual(token, authorization.substring("Bearer ".length()).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Gets the cached {@link VersionData}, loading it from the analysis directory or analysing the version if it is not
+     * present.
+     *
+     * @return The {@link VersionData}, or {@code null} if the version failed to analyse within the failure ttl.
+     */
+    private VersionData getVersionData(String version) throws IOException {
+        synchronized (cache) {
+            VersionData versionData = cache.get(version);
+            if (versionData != null) {
+                return versionData;
+            }
+        }
+        
+        if (isFailed(version)) {
+            return null;
+        }
+        
+        VersionData versionData = VersionData.load(config, version);
+        if (versionData == null) {
+            return analyse(version, false);
+        }
+        
+        cache(version, versionData);
+        return versionData;
+    }
+    
+    /**
+     * Analyses the version and replaces any cached {@link VersionData}, only one analysis runs at a time as
+     * {@link Analysis} is a singleton. Unless forced, a version analysed by a concurrent request is not analysed again.
+     */
+    private VersionData analyse(String version, boolean force) throws IOException {
+        synchronized (analysisLock) {
+            if (!force) {
+                synchronized (cache) {
+                    VersionData versionData = cache.get(version);
+                    if (versionData != null) {
+                        return versionData;
+                    }
+                }
+                
+                if (isFailed(version)) {
+                    return null;
+                }
+            }
+            
+            Analysis.getInstance().getLogger().info("Analysing {}", version);
+            VersionData versionData = Analysis.loadVersion(config, version, reconstruct) ? VersionData.load(config, version) : null;
+            if (versionData == null) {
+                failures.put(version, System.nanoTime());
+                uncache(version);
+                return null;
+            }
+            
+            failures.remove(version);
+            cache(version, versionData);
+            return versionData;
+        }
+    }
+    
+    private boolean isFailed(String version) {
+        Long time = failures.get(version);
+        if (time == null) {
+            return false;
+        }
+        
+        if (System.nanoTime() - time < TimeUnit.SECONDS.toNanos(config.getDaemonFailureTtl())) {
+            return true;
+        }
+        
+        failures.remove(version, time);
+        return false;
+    }
+    
+    /**
+     * Caches the {@link VersionData} and evicts the least recently used versions until the cache fits within
+     * {@code --daemon-cache} megabytes, the most recent version is always kept.
+     */
+    private void cache(String version, VersionData versionData) {
+        long maximumSize = Math.max(config.getDaemonCache(), 1) * 1024L * 1024L;
+        synchronized (cache) {
+            VersionData previousVersionData = cache.put(version, versionData);
+            if (previousVersionData != null) {
+                cacheSize -= previousVersionData.getSize();
+            }
+            
+            cacheSize += versionData.getSize();
+            Iterator<VersionData> iterator = cache.values().iterator();
+            while (cacheSize > maximumSize && cache.size() > 1) {
+                cacheSize -= iterator.next().getSize();
+                iterator.remove();
+            }
+        }
+    }
+    
+    private void uncache(String version) {
+        synchronized (cache) {
+            VersionData versionData = cache.remove(version);
+            if (versionData != null) {
+                cacheSize -= versionData.getSize();
+            }
+        }
+    }
+    
+    private void send(HttpExchange exchange, byte[] bytes, String message) throws IOException {
+        if (bytes != null) {
+            send(exchange, 200, bytes);
+        } else {
+            sendError(exchange, 404, message);
+        }
+    }
+    
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                sendError(exchange, 405, "Method Not Allowed");
+                return;
+            }
+            
+            byte[] bytes = MetricManager.getExposition().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+    
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject jsonObject = new JsonObject();
+        jsonObject.addProperty("error", message);
+        send(exchange, status, jsonObject.toString().getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private void send(HttpExchange exchange, int status, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.cli.daemon;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.github.lxgaming.analysis.common.configuration.Config;
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
+import io.github.lxgaming.analysis.common.util.Toolbox;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Analysis results of a single version held in memory, every response is serialized once when the version is loaded
+ * so lookups only need to copy bytes.
+ */
+public class VersionData {
+    
+    private final String version;
+    private final byte[] manifest;
+    private final byte[] protocol;
+    private final Map<String, byte[]> mappings;
+    private final long size;
+    
+    private VersionData(String version, byte[] manifest, byte[] protocol, Map<String, byte[]> mappings) {
+        this.version = version;
+        this.manifest = manifest;
+        this.protocol = protocol;
+        this.mappings = mappings;
+        this.size = getSize(manifest, protocol, mappings);
+    }
+    
+    /**
+     * @return The {@link VersionData}, or {@code null} if the version has not been analysed.
+     */
+    public static VersionData load(Config config, String version) throws IOException {
+        Path path = Toolbox.getPath().resolve("analysis").resolve(version);
+        List<JsonElement> manifestRecords = readRecords(config, path, "version");
+        if (manifestRecords == null || manifestRecords.isEmpty()) {
+            return null;
+        }
+        
+        List<JsonElement> protocolRecords = readRecords(config, path, "protocol");
+        byte[] protocol = protocolRecords != null ? toBytes(toArray(protocolRecords)) : null;
+        
+        Map<String, byte[]> mappings = new HashMap<>();
+        List<JsonElement> mappingRecords = readRecords(config, path, "mapping");
+        if (mappingRecords != null) {
+            for (JsonElement record : mappingRecords) {
+                JsonObject jsonObject = record.getAsJsonObject();
+                JsonElement obfuscated = jsonObject.get("obfuscated");
+                if (obfuscated != null && obfuscated.isJsonPrimitive()) {
+                    mappings.put(obfuscated.getAsString(), toBytes(jsonObject));
+                }
+            }
+        }
+        
+        return new VersionData(version, toBytes(manifestRecords.get(0)), protocol, Collections.unmodifiableMap(mappings));
+    }
+    
+    /**
+     * Reads the output written by {@link io.github.lxgaming.analysis.common.Analysis#write(String, Object)} in the
+     * configured format, a JSON array or NDJSON file yields one element per record.
+     *
+     * @return The records, or {@code null} if the output does not exist.
+     */
+    private static List<JsonElement> readRecords(Config config, Path path, String name) throws IOException {
+        Path outputPath = path.resolve(String.format("%s-%s.%s%s",
+                config.getPlatform(), name, config.getOutputFormat().getExtension(), config.getOutputCompression().getExtension()));
+        if (!Files.exists(outputPath)) {
+            return null;
+        }
+        
+        InputStream inputStream = Files.newInputStream(outputPath);
+        if (config.getOutputCompression() == OutputCompression.GZIP) {
+            inputStream = new GZIPInputStream(inputStream);
+        } else if (config.getOutputCompression() == OutputCompression.ZSTD) {
+            inputStream = new ZstdInputStream(inputStream);
+        }
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            List<JsonElement> records = new ArrayList<>();
+            if (config.getOutputFormat() == OutputFormat.NDJSON) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isEmpty()) {
+                        records.add(JsonParser.parseString(line));
+                    }
+                }
+                
+                return records;
+            }
+            
+            JsonElement jsonElement = JsonParser.parseReader(reader);
+            if (jsonElement.isJsonArray() && !name.equals("version")) {
+                jsonElement.getAsJsonArray().forEach(records::add);
+            } else {
+                records.add(jsonElement);
+            }
+            
+            return records;
+        }
+    }
+    
+    private static JsonArray toArray(List<JsonElement> records) {
+        JsonArray jsonArray = new JsonArray(records.size());
+        records.forEach(jsonArray::add);
+        return jsonArray;
+    }
+    
+    /**
+     * Approximates the retained size from the serialized responses and mapping keys, object overhead is ignored.
+     */
+    private static long getSize(byte[] manifest, byte[] protocol, Map<String, byte[]> mappings) {
+        long size = manifest.length + (protocol != null ? protocol.length : 0);
+        for (Map.Entry<String, byte[]> entry : mappings.entrySet()) {
+            size += entry.getKey().length() * 2L + entry.getValue().length;
+        }
+        
+        return size;
+    }
+    
+    private static byte[] toBytes(JsonElement jsonElement) {
+        return jsonElement.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    public String getVersion() {
+        return version;
+    }
+    
+    public byte[] getManifest() {
+        return manifest;
+    }
+    
+    public byte[] getProtocol() {
+        return protocol;
+    }
+    
+    public byte[] getMapping(String obfuscatedName) {
+        return mappings.get(obfuscatedName);
+    }
+    
+    /**
+     * @return The approximate number of bytes held by this {@link VersionData}.
+     */
+    public long getSize() {
+        return size;
+    }
+}
@@ -16,19 +16,30 @@
 
 package io.github.lxgaming.analysis.cli.util;
 
+import io.github.lxgaming.analysis.cli.daemon.Daemon;
 import io.github.lxgaming.analysis.common.Analysis;
 import io.github.lxgaming.analysis.common.manager.IntegrationManager;
 import org.apache.logging.log4j.LogManager;
 
 public class ShutdownHook extends Thread {
     
+    private volatile Daemon daemon;
+    
     @Override
     public void run() {
         Thread.currentThread().setName("Shutdown Thread");
         Analysis.getInstance().getLogger().info("Shutting down...");
         
+        if (daemon != null) {
+            daemon.stop();
+        }
+        
         IntegrationManager.shutdown();
         
         LogManager.shutdown();
     }
+    
+    public void registerDaemon(Daemon daemon) {
+        this.daemon = daemon;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,465 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.cli.util;
+
+import com.google.gson.annotations.SerializedName;
+import io.github.lxgaming.analysis.cli.Worker;
+import io.github.lxgaming.analysis.cli.configuration.ConfigImpl;
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
+import io.github.lxgaming.analysis.common.util.Profiler;
+import io.github.lxgaming.analysis.common.util.Toolbox;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Analyses versions across a pool of child JVMs, each {@link Worker} is started before it is needed and replaced
+ * after a number of versions or once its retained heap has grown too far, a crashing worker only fails the version it
+ * was analysing.
+ */
+public class WorkerPool {
+    
+    public static final String READY = "READY";
+    public static final String ANALYSE = "ANALYSE";
+    public static final String RESULT = "RESULT";
+    public static final String EXIT = "EXIT";
+    
+    private final ConfigImpl config;
+    private final List<String> command;
+    private final Queue<String> queue;
+    private final Map<String, Result> results;
+    private final AtomicInteger workerCounter;
+    private final AtomicInteger versionCounter;
+    private ScheduledExecutorService watchdogService;
+    private int versionCount;
+    
+    public WorkerPool(ConfigImpl config, String[] args) {
+        this.config = config;
+        this.command = createCommand(args);
+        this.queue = new ConcurrentLinkedQueue<>();
+        this.results = new ConcurrentHashMap<>();
+        this.workerCounter = new AtomicInteger();
+        this.versionCounter = new AtomicInteger();
+    }
+    
+    public boolean execute() {
+        List<String> versions = Analysis.resolveVersions(config.getVersions());
+        if (versions == null) {
+            return false;
+        }
+        
+        queue.addAll(versions);
+        versionCount = versions.size();
+        
+        int workers = Math.min(config.getWorkers(), versions.size());
+        Analysis.getInstance().getLogger().info("Analysing {} versions across {} workers", versions.size(), workers);
+        
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(workers, 1), Toolbox.newThreadFactory("Worker Coordinator #%d"));
+        watchdogService = Executors.newSingleThreadScheduledExecutor(Toolbox.newThreadFactory("Worker Watchdog #%d"));
+        try {
+            for (int index = 0; index < workers; index++) {
+                executorService.execute(this::run);
+            }
+            
+            executorService.shutdown();
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Analysis.getInstance().getLogger().error("Interrupted while waiting for workers", ex);
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdownNow();
+            watchdogService.shutdownNow();
+        }
+        
+        // Merge the results in the order the versions were requested
+        List<Result> summary = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+        for (String version : versions) {
+            Result result = results.computeIfAbsent(version, key -> new Result(key, Status.SKIPPED, 0, 0L));
+            summary.add(result);
+            if (result.getStatus() != Status.SUCCESS) {
+                failures.add(version);
+            }
+        }
+        
+        writeSummary(summary);
+        
+        if (!failures.isEmpty()) {
+            Analysis.getInstance().getLogger().error("{} of {} versions failed: {}", failures.size(), versions.size(), String.join(", ", failures));
+            return false;
+        }
+        
+        Analysis.getInstance().getLogger().info("Analysed {} versions", versions.size());
+        return true;
+    }
+    
+    /**
+     * Analyses queued versions on a single worker at a time. The replacement for a worker is started in the background
+     * as soon as it is known to be needed, so it boots while the current worker finishes its last version or shuts
+     * down.
+     */
+    private void run() {
+        ExecutorService startService = Executors.newSingleThreadExecutor(Toolbox.newThreadFactory("Worker Starter #%d"));
+        Future<WorkerProcess> spare = null;
+        WorkerProcess worker = null;
+        try {
+            while (!queue.isEmpty()) {
+                if (worker == null) {
+                    if (spare == null) {
+                        spare = startService.submit(this::startWorker);
+                    }
+                    
+                    worker = spare.get();
+                    spare = null;
+                    if (worker == null) {
+                        return;
+                    }
+                }
+                
+                String version = queue.poll();
+                if (version == null) {
+                    break;
+                }
+                
+                // A worker retiring after this version is replaced while it analyses
+                if (config.getWorkerVersions() > 0 && worker.getCount() + 1 >= config.getWorkerVersions()) {
+                    spare = prestart(startService, spare);
+                }
+                
+                Analysis.getInstance().getLogger().info("Analysing {} ({}/{}) on worker #{}", version, versionCounter.incrementAndGet(), versionCount, worker.getId());
+                Profiler profiler = new Profiler();
+                String[] response = worker.analyse(version, config.getWorkerTimeout(), watchdogService);
+                if (response == null) {
+                    if (worker.isTimedOut()) {
+                        Analysis.getInstance().getLogger().error("Worker #{} timed out after {} seconds while analysing {}", worker.getId(), config.getWorkerTimeout(), version);
+                        results.put(version, new Result(version, Status.TIMED_OUT, worker.getId(), TimeUnit.NANOSECONDS.toMillis(profiler.getDuration())));
+                        MetricManager.ANALYSES.labels("timed_out").inc();
+                    } else {
+                        Analysis.getInstance().getLogger().error("Worker #{} exited unexpectedly while analysing {}", worker.getId(), version);
+                        results.put(version, new Result(version, Status.CRASHED, worker.getId(), 0L));
+                        MetricManager.ANALYSES.labels("crashed").inc();
+                    }
+                    
+                    spare = prestart(startService, spare);
+                    worker.destroy();
+                    worker = null;
+                    continue;
+                }
+                
+                boolean success = Boolean.parseBoolean(response[1]);
+                long heapGrowth = Long.parseLong(response[2]) - worker.getHeapUsage();
+                results.put(version, new Result(version, success ? Status.SUCCESS : Status.FAILURE, worker.getId(), TimeUnit.NANOSECONDS.toMillis(profiler.getDuration())));
+                Analysis.getInstance().getLogger().info("Worker #{} analysed {} in {}", worker.getId(), version, profiler);
+                
+                // Workers keep their own metrics, only the outcome is reported back to the coordinator
+                MetricManager.ANALYSES.labels(success ? "success" : "failure").inc();
+                if (success) {
+                    MetricManager.LAST_SUCCESS.setToCurrentTime();
+                }
+                
+                if (config.getWorkerVersions() > 0 && worker.getCount() >= config.getWorkerVersions()) {
+                    Analysis.getInstance().getLogger().info("Replacing worker #{} after {} versions", worker.getId(), worker.getCount());
+                    spare = prestart(startService, spare);
+                    worker.close();
+                    worker = null;
+                } else if (config.getWorkerHeapGrowth() > 0 && heapGrowth > config.getWorkerHeapGrowth() * 1024L * 1024L) {
+                    Analysis.getInstance().getLogger().info("Replacing worker #{} after heap grew by {} MB", worker.getId(), heapGrowth / (1024L * 1024L));
+                    spare = prestart(startService, spare);
+                    worker.close();
+                    worker = null;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Analysis.getInstance().getLogger().error("Interrupted while coordinating worker", ex);
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while coordinating worker", ex);
+        } finally {
+            if (worker != null) {
+                worker.close();
+            }
+            
+            // A spare started for versions another coordinator took is no longer needed
+            if (spare != null) {
+                spare.cancel(false);
+                try {
+                    WorkerProcess spareWorker = spare.get();
+                    if (spareWorker != null) {
+                        spareWorker.close();
+                    }
+                } catch (Exception ignored) {
+                    // no-op
+                }
+            }
+            
+            startService.shutdownNow();
+        }
+    }
+    
+    /**
+     * Starts a replacement worker in the background unless one is already starting or no versions remain.
+     */
+    private Future<WorkerProcess> prestart(ExecutorService startService, Future<WorkerProcess> spare) {
+        if (spare != null || queue.isEmpty()) {
+            return spare;
+        }
+        
+        return startService.submit(this::startWorker);
+    }
+    
+    private WorkerProcess startWorker() {
+        int id = workerCounter.incrementAndGet();
+        try {
+            WorkerProcess worker = WorkerProcess.start(id, command);
+            Analysis.getInstance().getLogger().debug("Started worker #{}", id);
+            return worker;
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while starting worker #{}", id, ex);
+            return null;
+        }
+    }
+    
+    private void writeSummary(List<Result> summary) {
+        Path path = Toolbox.getPath().resolve("analysis").resolve("summary.json");
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                Toolbox.GSON.toJson(summary, writer);
+            }
+            
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while writing {}", path.getFileName(), ex);
+        }
+    }
+    
+    private static List<String> createCommand(String[] args) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            // A debugger agent would fail to bind the address already held by the coordinator
+            if (argument.startsWith("-agentlib:jdwp") || argument.startsWith("-Xrunjdwp")) {
+                continue;
+            }
+            
+            command.add(argument);
+        }
+        
+        // Workers log to the coordinator's console, a file appender would roll the coordinator's log on startup
+        command.add("-Dlog4j.configurationFile=log4j2-worker.xml");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(Worker.class.getName());
+        command.addAll(Arrays.asList(args));
+        return command;
+    }
+    
+    private static class WorkerProcess implements Closeable {
+        
+        private final int id;
+        private final Process process;
+        private final BufferedReader reader;
+        private final BufferedWriter writer;
+        private long heapUsage;
+        private int count;
+        private volatile boolean timedOut;
+        
+        private WorkerProcess(int id, Process process) {
+            this.id = id;
+            this.process = process;
+            this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            this.writer = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+        
+        static WorkerProcess start(int id, List<String> command) throws IOException {
+            Process process = new ProcessBuilder(command)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            
+            WorkerProcess worker = new WorkerProcess(id, process);
+            String[] response = worker.read(READY, 2);
+            if (response == null) {
+                worker.destroy();
+                throw new IOException("Worker exited before becoming ready");
+            }
+            
+            worker.heapUsage = Long.parseLong(response[1]);
+            return worker;
+        }
+        
+        /**
+         * Requests an analysis of the provided version, the worker is killed if it does not respond within the timeout.
+         *
+         * @return The {@link #RESULT} response split into its result, heap usage and version, or {@code null} if the
+         * worker exited or timed out.
+         */
+        String[] analyse(String version, int timeout, ScheduledExecutorService watchdogService) {
+            ScheduledFuture<?> watchdog = timeout > 0 ? watchdogService.schedule(() -> {
+                timedOut = true;
+                destroy();
+            }, timeout, TimeUnit.SECONDS) : null;
+            try {
+                writer.write(ANALYSE + " " + version);
+                writer.newLine();
+                writer.flush();
+                
+                String[] response = read(RESULT, 4);
+                if (response != null) {
+                    count++;
+                }
+                
+                return response;
+            } catch (IOException ex) {
+                return null;
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+            }
+        }
+        
+        /**
+         * Reads the next response of the provided type, the last field takes the remainder of the line so it may
+         * contain spaces.
+         */
+        private String[] read(String type, int length) throws IOException {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] response = line.split(" ", length);
+                if (response.length == length && response[0].equals(type)) {
+                    return response;
+                }
+                
+                Analysis.getInstance().getLogger().warn("Unexpected response from worker #{}: {}", id, line);
+            }
+            
+            return null;
+        }
+        
+        void destroy() {
+            process.destroyForcibly();
+        }
+        
+        @Override
+        public void close() {
+            try {
+                writer.write(EXIT);
+                writer.newLine();
+                writer.flush();
+                if (process.waitFor(30, TimeUnit.SECONDS)) {
+                    return;
+                }
+                
+                Analysis.getInstance().getLogger().warn("Worker #{} did not exit in time", id);
+            } catch (IOException ex) {
+                // Worker has already exited
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            
+            destroy();
+        }
+        
+        int getId() {
+            return id;
+        }
+        
+        long getHeapUsage() {
+            return heapUsage;
+        }
+        
+        int getCount() {
+            return count;
+        }
+        
+        boolean isTimedOut() {
+            return timedOut;
+        }
+    }
+    
+    private enum Status {
+        
+        @SerializedName("success")
+        SUCCESS,
+        
+        @SerializedName("failure")
+        FAILURE,
+        
+        @SerializedName("crashed")
+        CRASHED,
+        
+        @SerializedName("timed_out")
+        TIMED_OUT,
+        
+        @SerializedName("skipped")
+        SKIPPED
+    }
+    
+    private static class Result {
+        
+        @SerializedName("version")
+        private final String version;
+        
+        @SerializedName("status")
+        private final Status status;
+        
+        @SerializedName("worker")
+        private final int worker;
+        
+        @SerializedName("duration")
+        private final long duration;
+        
+        Result(String version, Status status, int worker, long duration) {
+            this.version = version;
+            this.status = status;
+            this.worker = worker;
+            this.duration = duration;
+        }
+        
+        Status getStatus() {
+            return status;
+        }
+    }
+}
@@ -19,20 +19,31 @@ package io.github.lxgaming.analysis.common;
 import io.github.lxgaming.analysis.common.configuration.Config;
 import io.github.lxgaming.analysis.common.entity.BuildManifest;
 import io.github.lxgaming.analysis.common.integration.minecraft.MinecraftIntegration;
+import io.github.lxgaming.analysis.common.integration.minecraft.entity.VersionList;
 import io.github.lxgaming.analysis.common.integration.reconstruct.ReconstructIntegration;
 import io.github.lxgaming.analysis.common.manager.IntegrationManager;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
 import io.github.lxgaming.analysis.common.manager.QueryManager;
 import io.github.lxgaming.analysis.common.util.AnalysisClassLoader;
+import io.github.lxgaming.analysis.common.util.ColumnarWriter;
+import io.github.lxgaming.analysis.common.util.OutputSink;
+import io.github.lxgaming.analysis.common.util.Profiler;
 import io.github.lxgaming.analysis.common.util.StringUtils;
 import io.github.lxgaming.analysis.common.util.Toolbox;
+import io.github.lxgaming.analysis.common.util.TraceWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.Writer;
+import java.io.PrintStream;
 import java.lang.reflect.Method;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 
 public class Analysis {
     
@@ -48,6 +59,9 @@ public class Analysis {
     private final Logger logger;
     private final Config config;
     private final AnalysisClassLoader classLoader;
+    private final ThreadLocal<Collection<Path>> outputs;
+    private PrintStream systemOut;
+    private PrintStream systemErr;
     private Path analysisPath;
     private Path librariesPath;
     private Path versionPath;
@@ -58,12 +72,30 @@ public class Analysis {
         this.logger = LoggerFactory.getLogger(Analysis.NAME);
         this.config = config;
         this.classLoader = new AnalysisClassLoader();
+        this.outputs = new ThreadLocal<>();
     }
     
-    public void load() {
+    public boolean load() {
+        Profiler.setTracing(getConfig().isTrace());
+        boolean result = false;
+        try (Profiler profiler = Profiler.start("Analysis")) {
+            result = performLoad();
+        } finally {
+            recordMetrics(result);
+        }
+        
+        Profiler.logSummary(getLogger());
+        if (getConfig().isTrace()) {
+            writeTrace();
+        }
+        
+        return result;
+    }
+    
+    private boolean performLoad() {
         if (getConfig().getPlatform() == null || StringUtils.isBlank(getConfig().getVersion())) {
             getLogger().error("Invalid arguments");
-            return;
+            return false;
         }
         
         Path path = Toolbox.getPath();
@@ -79,21 +111,25 @@ public class Analysis {
         IntegrationManager.prepare();
         QueryManager.prepare();
         
-        IntegrationManager.execute();
+        try (Profiler profiler = Profiler.start("Integrations")) {
+            IntegrationManager.execute();
+        }
         
         MinecraftIntegration minecraftIntegration = IntegrationManager.getIntegration(MinecraftIntegration.class);
         ReconstructIntegration reconstructIntegration = IntegrationManager.getIntegration(ReconstructIntegration.class);
         if (minecraftIntegration == null || reconstructIntegration == null) {
-            return;
+            return false;
         }
         
-        if (!minecraftIntegration.downloadMinecraft()) {
-            return;
+        if (!minecraftIntegration.isDownloaded()) {
+            return false;
         }
         
         if (getConfig().isReconstruct()) {
-            if (!reconstructIntegration.performReconstruction()) {
-                return;
+            try (Profiler profiler = Profiler.start("Reconstruct")) {
+                if (!reconstructIntegration.performReconstruction()) {
+                    return false;
+                }
             }
         } else {
             getLogger().info("Skipping Reconstruct");
@@ -103,7 +139,7 @@ public class Analysis {
         
         this.manifest = minecraftIntegration.deserializeBuildManifest();
         if (manifest == null) {
-            return;
+            return false;
         }
         
         getLogger().info("Minecraft v{} ({}):", getManifest().getName(), getManifest().getId());
@@ -117,34 +153,283 @@ public class Analysis {
         getLogger().info("-- World: {}", getManifest().getWorldVersion());
         write("version", manifest);
         
-        try {
+        if (prepareQueryCache(minecraftIntegration, reconstructIntegration)) {
+            getLogger().info("All queries are cached, skipping Bootstrap");
+            return true;
+        }
+        
+        if (getConfig().isStatic()) {
+            getLogger().info("Performing Static Analysis...");
+            try (Profiler profiler = Profiler.start("Queries")) {
+                QueryManager.execute();
+            }
+            
+            return true;
+        }
+        
+        // Bootstrap redirects the standard streams into the game's logger, which would otherwise retain the class loader
+        this.systemOut = System.out;
+        this.systemErr = System.err;
+        
+        try (Profiler profiler = Profiler.start("Bootstrap")) {
             Class<?> bootstrapClass = classLoader.loadClass("net.minecraft.server.Bootstrap");
             Method method = bootstrapClass.getMethod("bootStrap");
             method.invoke(null);
         } catch (Throwable ex) {
             getLogger().error("Encountered an error while attempting to bootstrap Minecraft", ex);
-            return;
+            return false;
         }
         
         getLogger().info("Performing Analysis...");
-        QueryManager.execute();
+        try (Profiler profiler = Profiler.start("Queries")) {
+            QueryManager.execute();
+        }
+        
+        return true;
     }
     
-    public void write(String name, Object object) {
-        Path path = getAnalysisPath().resolve(String.format("%s-%s.json", getConfig().getPlatform(), name));
+    /**
+     * Analyses each of the configured versions in turn, every version receives its own {@link Analysis} and
+     * {@link AnalysisClassLoader} which are shut down and released before the next version is loaded.
+     *
+     * @param config The {@link Config} shared by every version.
+     * @return {@code true} if every version was analysed successfully, otherwise {@code false}.
+     */
+    public static boolean loadAll(Config config) {
+        List<String> versions = resolveVersions(config.getVersions());
+        if (versions == null) {
+            return false;
+        }
+        
+        boolean reconstruct = config.isReconstruct();
+        List<String> failures = new ArrayList<>();
+        for (int index = 0; index < versions.size(); index++) {
+            String version = versions.get(index);
+            getInstance().getLogger().info("Analysing {} ({}/{})", version, index + 1, versions.size());
+            if (!loadVersion(config, version, reconstruct)) {
+                failures.add(version);
+            }
+        }
+        
+        if (!failures.isEmpty()) {
+            getInstance().getLogger().error("{} of {} versions failed: {}", failures.size(), versions.size(), String.join(", ", failures));
+            return false;
+        }
+        
+        getInstance().getLogger().info("Analysed {} versions", versions.size());
+        return true;
+    }
+    
+    /**
+     * Analyses a single version with its own {@link Analysis} which is shut down before returning.
+     *
+     * @param config      The {@link Config} to update with the version.
+     * @param version     The Minecraft version to analyse.
+     * @param reconstruct Whether Reconstruct should be forced for this version.
+     * @return {@code true} if the version was analysed successfully, otherwise {@code false}.
+     */
+    public static boolean loadVersion(Config config, String version, boolean reconstruct) {
+        config.setVersion(version);
+        config.setReconstruct(reconstruct);
+        
+        Analysis analysis = new Analysis(config);
+        Profiler profiler = new Profiler();
+        boolean result;
+        try {
+            result = analysis.load();
+        } catch (Throwable ex) {
+            analysis.getLogger().error("Encountered an error while analysing {}", version, ex);
+            result = false;
+        } finally {
+            analysis.shutdown();
+        }
+        
+        analysis.getLogger().info("Analysed {} in {}", version, profiler);
+        return result;
+    }
+    
+    /**
+     * Resolves version ids and inclusive {@code from..to} ranges against the version manifest, ranges are ordered
+     * from oldest to newest and include every version type between the two ends.
+     */
+    public static List<String> resolveVersions(Collection<String> specs) {
+        Set<String> versions = new LinkedHashSet<>();
+        VersionList versionList = null;
+        for (String spec : specs) {
+            int separator = spec.indexOf("..");
+            if (separator == -1) {
+                versions.add(spec.trim());
+                continue;
+            }
+            
+            if (versionList == null) {
+                versionList = MinecraftIntegration.getVersionList(false);
+                if (versionList == null) {
+                    return null;
+                }
+            }
+            
+            int fromIndex = indexOf(versionList, spec.substring(0, separator).trim());
+            int toIndex = indexOf(versionList, spec.substring(separator + 2).trim());
+            if (fromIndex == -1 || toIndex == -1) {
+                getInstance().getLogger().error("Cannot find specified version range {}", spec);
+                return null;
+            }
+            
+            // The manifest lists the newest versions first
+            for (int index = Math.max(fromIndex, toIndex); index >= Math.min(fromIndex, toIndex); index--) {
+                versions.add(versionList.getVersions().get(index).getId());
+            }
+        }
+        
+        return new ArrayList<>(versions);
+    }
+    
+    private static int indexOf(VersionList versionList, String id) {
+        for (int index = 0; index < versionList.getVersions().size(); index++) {
+            if (versionList.getVersions().get(index).getId().equals(id)) {
+                return index;
+            }
+        }
+        
+        return -1;
+    }
+    
+    /**
+     * Shuts down the integrations, resets the registered queries and closes the {@link AnalysisClassLoader} so that
+     * this version can be garbage collected.
+     */
+    public void shutdown() {
+        IntegrationManager.shutdown();
+        QueryManager.shutdown();
+        Profiler.reset();
+        
+        if (systemOut != null) {
+            System.setOut(systemOut);
+            System.setErr(systemErr);
+        }
+        
+        try {
+            classLoader.close();
+        } catch (Exception ex) {
+            getLogger().warn("Encountered an error while closing class loader", ex);
+        }
+    }
+    
+    private boolean prepareQueryCache(MinecraftIntegration minecraftIntegration, ReconstructIntegration reconstructIntegration) {
+        String hash;
+        try {
+            hash = minecraftIntegration.getLedger().hash(reconstructIntegration.getConfig().getOutputPath());
+            minecraftIntegration.getLedger().save();
+        } catch (Exception ex) {
+            getLogger().warn("Encountered an error while hashing {}, query results will not be cached", reconstructIntegration.getConfig().getOutputPath().getFileName(), ex);
+            return false;
+        }
+        
+        return QueryManager.prepareCache(getAnalysisPath().resolve(String.format("%s-cache.json", getConfig().getPlatform())), hash);
+    }
+    
+    public boolean write(String name, Object object) {
+        return write(name, sink -> sink.write(object));
+    }
+    
+    /**
+     * Streams output through an {@link OutputSink} in the configured format, allowing large results to be written
+     * record by record. The file only replaces any previous output once it has been written completely.
+     *
+     * @return {@code true} if the output was written, {@code false} if it failed and the error was logged.
+     */
+    public boolean write(String name, OutputConsumer consumer) {
+        Path path = getAnalysisPath().resolve(String.format("%s-%s.%s%s",
+                getConfig().getPlatform(), name, getConfig().getOutputFormat().getExtension(), getConfig().getOutputCompression().getExtension()));
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
         
         try {
             Files.createDirectories(path.getParent());
         } catch (Exception ex) {
             Analysis.getInstance().getLogger().error("Encountered an error while creating directory {}", path.getParent(), ex);
+            return false;
+        }
+        
+        try {
+            try (OutputSink sink = OutputSink.open(temporaryPath, getConfig().getOutputFormat(), getConfig().getOutputCompression(), getConfig().isCompact())) {
+                consumer.accept(sink);
+            }
+            
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            recordOutput(path);
+            getLogger().info("Wrote {}", path.getFileName());
+            return true;
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while writing to {}", path, ex);
+            
+            try {
+                Files.deleteIfExists(temporaryPath);
+            } catch (Exception ignored) {
+                // no-op
+            }
+            
+            return false;
+        }
+    }
+    
+    private void recordMetrics(boolean result) {
+        MetricManager.observePhases(Profiler.getSpans());
+        MetricManager.ANALYSES.labels(result ? "success" : "failure").inc();
+        if (result) {
+            MetricManager.LAST_SUCCESS.setToCurrentTime();
+        }
+    }
+    
+    /**
+     * Writes the spans recorded during {@link #load()} as a Chrome trace, this is not an analysis output so it ignores
+     * the configured format.
+     */
+    private void writeTrace() {
+        if (getAnalysisPath() == null) {
             return;
         }
         
-        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
-            Toolbox.GSON.toJson(object, writer);
+        Path path = getAnalysisPath().resolve(String.format("%s-trace.json", getConfig().getPlatform()));
+        try {
+            Files.createDirectories(path.getParent());
+            TraceWriter.write(path, String.format("%s %s (%s)", NAME, getConfig().getVersion(), getConfig().getPlatform()), Profiler.getSpans());
+            getLogger().info("Wrote {}", path.getFileName());
+        } catch (Exception ex) {
+            getLogger().error("Encountered an error while writing to {}", path, ex);
+        }
+    }
+    
+    public boolean writeColumnar(String name, ColumnarWriter columnarWriter) {
+        Path path = getAnalysisPath().resolve(String.format("%s-%s.col", getConfig().getPlatform(), name));
+        
+        try {
+            columnarWriter.write(path);
+            recordOutput(path);
             getLogger().info("Wrote {}", path.getFileName());
+            return true;
         } catch (Exception ex) {
             Analysis.getInstance().getLogger().error("Encountered an error while writing to {}", path, ex);
+            return false;
+        }
+    }
+    
+    /**
+     * Collects every output subsequently written by the current thread into the provided {@link Collection}, or stops
+     * collecting if it is {@code null}.
+     */
+    public void setOutputs(Collection<Path> outputs) {
+        if (outputs != null) {
+            this.outputs.set(outputs);
+        } else {
+            this.outputs.remove();
+        }
+    }
+    
+    private void recordOutput(Path path) {
+        Collection<Path> outputs = this.outputs.get();
+        if (outputs != null) {
+            outputs.add(path);
         }
     }
     
@@ -168,6 +453,10 @@ public class Analysis {
         return analysisPath;
     }
     
+    public void setAnalysisPath(Path analysisPath) {
+        this.analysisPath = analysisPath;
+    }
+    
     public Path getLibrariesPath() {
         return librariesPath;
     }
@@ -179,4 +468,10 @@ public class Analysis {
     public BuildManifest getManifest() {
         return manifest;
     }
+    
+    @FunctionalInterface
+    public interface OutputConsumer {
+        
+        void accept(OutputSink sink) throws Exception;
+    }
 }
\ No newline at end of file
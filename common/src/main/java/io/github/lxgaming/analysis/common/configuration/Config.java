@@ -16,6 +16,8 @@
 
 package io.github.lxgaming.analysis.common.configuration;
 
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
 import io.github.lxgaming.analysis.common.entity.Platform;
 
 import java.util.Collection;
@@ -28,13 +30,49 @@ public interface Config {
     
     void setReconstruct(boolean reconstruct);
     
+    boolean isReverify();
+    
     int getThreads();
     
     void setThreads(int threads);
     
+    int getDownloadThreads();
+    
+    int getDownloadConnections();
+    
+    int getManifestTtl();
+    
+    int getConnectTimeout();
+    
+    int getReadTimeout();
+    
+    int getRetries();
+    
+    boolean isCompact();
+    
+    OutputFormat getOutputFormat();
+    
+    OutputCompression getOutputCompression();
+    
+    boolean isColumnar();
+    
     Collection<String> getQueries();
     
+    int getQueryTimeout();
+    
+    boolean isForceQueries();
+    
+    boolean isStatic();
+    
+    boolean isTrace();
+    
+    int getMappingLogInterval();
+    
     Platform getPlatform();
     
     String getVersion();
+    
+    void setVersion(String version);
+    
+    Collection<String> getVersions();
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.entity;
+
+import com.google.gson.annotations.SerializedName;
+
+public class CacheEntry {
+    
+    @SerializedName("url")
+    private String url;
+    
+    @SerializedName("etag")
+    private String etag;
+    
+    @SerializedName("lastModified")
+    private String lastModified;
+    
+    @SerializedName("checked")
+    private long checked;
+    
+    public CacheEntry(String url, String etag, String lastModified, long checked) {
+        this.url = url;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.checked = checked;
+    }
+    
+    public String getUrl() {
+        return url;
+    }
+    
+    public String getEtag() {
+        return etag;
+    }
+    
+    public String getLastModified() {
+        return lastModified;
+    }
+    
+    public long getChecked() {
+        return checked;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.entity;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+public class LedgerEntry {
+    
+    @SerializedName("path")
+    private String path;
+    
+    @SerializedName("size")
+    private long size;
+    
+    @SerializedName("modified")
+    private long modified;
+    
+    @SerializedName("fileKey")
+    private String fileKey;
+    
+    @SerializedName("sha1")
+    private String hash;
+    
+    public LedgerEntry(String path, BasicFileAttributes attributes, String hash) {
+        this.path = path;
+        this.size = attributes.size();
+        this.modified = attributes.lastModifiedTime().toMillis();
+        this.fileKey = attributes.fileKey() != null ? attributes.fileKey().toString() : null;
+        this.hash = hash;
+    }
+    
+    public boolean matches(BasicFileAttributes attributes) {
+        return getSize() == attributes.size()
+                && getModified() == attributes.lastModifiedTime().toMillis()
+                && Objects.equals(getFileKey(), attributes.fileKey() != null ? attributes.fileKey().toString() : null);
+    }
+    
+    public String getPath() {
+        return path;
+    }
+    
+    public long getSize() {
+        return size;
+    }
+    
+    public long getModified() {
+        return modified;
+    }
+    
+    public String getFileKey() {
+        return fileKey;
+    }
+    
+    public String getHash() {
+        return hash;
+    }
+}
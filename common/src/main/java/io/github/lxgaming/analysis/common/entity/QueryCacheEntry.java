@@ -0,0 +1,51 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.entity;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.Map;
+
+public class QueryCacheEntry {
+    
+    @SerializedName("query")
+    private String query;
+    
+    @SerializedName("fingerprint")
+    private String fingerprint;
+    
+    @SerializedName("outputs")
+    private Map<String, Long> outputs;
+    
+    public QueryCacheEntry(String query, String fingerprint, Map<String, Long> outputs) {
+        this.query = query;
+        this.fingerprint = fingerprint;
+        this.outputs = outputs;
+    }
+    
+    public String getQuery() {
+        return query;
+    }
+    
+    public String getFingerprint() {
+        return fingerprint;
+    }
+    
+    public Map<String, Long> getOutputs() {
+        return outputs;
+    }
+}
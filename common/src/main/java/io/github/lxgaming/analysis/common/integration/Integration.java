@@ -16,11 +16,24 @@
 
 package io.github.lxgaming.analysis.common.integration;
 
+import java.util.LinkedHashSet;
+import java.util.Set;
+
 public abstract class Integration {
     
+    private final Set<Class<? extends Integration>> dependencies = new LinkedHashSet<>();
+    
     public abstract boolean prepare();
     
     public abstract void execute() throws Exception;
     
     public abstract void shutdown();
+    
+    protected final void addDependency(Class<? extends Integration> integrationClass) {
+        dependencies.add(integrationClass);
+    }
+    
+    public final Set<Class<? extends Integration>> getDependencies() {
+        return dependencies;
+    }
 }
\ No newline at end of file
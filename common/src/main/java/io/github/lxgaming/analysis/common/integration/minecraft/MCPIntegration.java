@@ -19,9 +19,11 @@ package io.github.lxgaming.analysis.common.integration.minecraft;
 import io.github.lxgaming.analysis.common.Analysis;
 import io.github.lxgaming.analysis.common.integration.Integration;
 import io.github.lxgaming.analysis.common.manager.IntegrationManager;
+import io.github.lxgaming.analysis.common.util.MappingSnapshot;
 import io.github.lxgaming.analysis.common.util.WebUtils;
 import net.minecraftforge.srgutils.IMappingFile;
 
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
@@ -30,7 +32,7 @@ import java.nio.file.Path;
 public class MCPIntegration extends Integration {
     
     private URL url;
-    private IMappingFile mappingFile;
+    private MappingSnapshot mapping;
     
     @Override
     public boolean prepare() {
@@ -65,7 +67,7 @@ public class MCPIntegration extends Integration {
             }
         }
         
-        this.mappingFile = IMappingFile.load(mappingPath.toFile());
+        this.mapping = MappingSnapshot.open(mappingPath, mappingPath.resolveSibling("mapping.tsrg.bin"), this::loadMapping);
     }
     
     @Override
@@ -73,7 +75,23 @@ public class MCPIntegration extends Integration {
         // no-op
     }
     
-    public IMappingFile getMappingFile() {
-        return mappingFile;
+    private void loadMapping(Path path, MappingSnapshot.Builder builder) throws IOException {
+        IMappingFile mappingFile = IMappingFile.load(path.toFile());
+        for (IMappingFile.IClass mappingClass : mappingFile.getClasses()) {
+            MappingSnapshot.ClassBuilder classBuilder = builder.addClass(mappingClass.getOriginal(), mappingClass.getMapped());
+            for (IMappingFile.IField mappingField : mappingClass.getFields()) {
+                classBuilder.addField(mappingField.getOriginal(), mappingField.getMapped());
+            }
+            
+            for (IMappingFile.IMethod mappingMethod : mappingClass.getMethods()) {
+                classBuilder.addMethod(mappingMethod.getOriginal(), mappingMethod.getDescriptor(), mappingMethod.getMapped());
+            }
+        }
+        
+        Analysis.getInstance().getLogger().debug("Created MCP Mapping Snapshot");
+    }
+    
+    public MappingSnapshot getMapping() {
+        return mapping;
     }
 }
\ No newline at end of file
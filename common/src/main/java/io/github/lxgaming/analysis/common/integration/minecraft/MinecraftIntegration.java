@@ -29,11 +29,17 @@ import io.github.lxgaming.analysis.common.integration.minecraft.entity.VersionLi
 import io.github.lxgaming.analysis.common.integration.minecraft.entity.VersionManifest;
 import io.github.lxgaming.analysis.common.integration.reconstruct.ReconstructIntegration;
 import io.github.lxgaming.analysis.common.manager.IntegrationManager;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
+import io.github.lxgaming.analysis.common.util.ArtifactLedger;
+import io.github.lxgaming.analysis.common.util.ArtifactStore;
+import io.github.lxgaming.analysis.common.util.DownloadScheduler;
 import io.github.lxgaming.analysis.common.util.HashUtils;
+import io.github.lxgaming.analysis.common.util.Profiler;
 import io.github.lxgaming.analysis.common.util.Toolbox;
 import io.github.lxgaming.analysis.common.util.WebUtils;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
@@ -42,15 +48,30 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class MinecraftIntegration extends Integration {
     
+    private static final String VERSION_MANIFEST_URL = "https://launchermeta.mojang.com/mc/game/version_manifest.json";
+    
+    private ArtifactLedger ledger;
+    private ArtifactStore store;
     private Platform platform;
     private Version version;
+    private boolean downloaded;
     
     @Override
     public boolean prepare() {
+        this.ledger = new ArtifactLedger(Analysis.getInstance().getLibrariesPath().resolveSibling("ledger.json"));
+        this.ledger.load();
+        this.store = new ArtifactStore(Analysis.getInstance().getLibrariesPath().resolveSibling("objects"));
         this.platform = Analysis.getInstance().getConfig().getPlatform();
         this.version = findVersion();
         if (version == null) {
@@ -64,7 +85,7 @@ public class MinecraftIntegration extends Integration {
     
     @Override
     public void execute() throws Exception {
-        // no-op
+        this.downloaded = downloadMinecraft();
     }
     
     @Override
@@ -72,6 +93,10 @@ public class MinecraftIntegration extends Integration {
         // no-op
     }
     
+    public boolean isDownloaded() {
+        return downloaded;
+    }
+    
     public BuildManifest deserializeBuildManifest() {
         try (InputStream inputStream = Analysis.getInstance().getClassLoader().getResourceAsStream("version.json")) {
             if (inputStream == null) {
@@ -90,7 +115,7 @@ public class MinecraftIntegration extends Integration {
     
     public boolean downloadMinecraft() {
         Path path = Analysis.getInstance().getVersionPath().resolve(Analysis.getInstance().getConfig().getVersion() + ".json");
-        if (!Files.exists(path) && !downloadFile(version.getUrl(), path)) {
+        if (!cacheFile(version.getUrl(), path, getManifestTtl())) {
             return false;
         }
         
@@ -127,14 +152,29 @@ public class MinecraftIntegration extends Integration {
             integration.getConfig().setOutputPath(outputPath);
         }
         
-        if (platform.isClient()) {
-            installLibraries(versionManifest.getLibraries());
+        try (Profiler profiler = Profiler.start("Download");
+             DownloadScheduler scheduler = new DownloadScheduler(
+                Analysis.getInstance().getConfig().getDownloadThreads(),
+                Analysis.getInstance().getConfig().getDownloadConnections())) {
+            Future<Boolean> artifactFuture = scheduler.submit(artifact.getUrl(), () -> downloadArtifact(artifact, jarPath, profiler));
+            Future<Boolean> mappingsFuture = scheduler.submit(mappingsArtifact.getUrl(), () -> downloadArtifact(mappingsArtifact, mappingPath, profiler));
+            
+            if (platform.isClient()) {
+                installLibraries(scheduler, versionManifest.getLibraries());
+            }
+            
+            return artifactFuture.get() && mappingsFuture.get();
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while downloading Minecraft", ex);
+            return false;
+        } finally {
+            ledger.save();
         }
-        
-        return downloadArtifact(artifact, jarPath) && downloadArtifact(mappingsArtifact, mappingPath);
     }
     
-    private void installLibraries(Collection<Library> libraries) {
+    private void installLibraries(DownloadScheduler scheduler, Collection<Library> libraries) throws ExecutionException, InterruptedException, IOException {
+        // Insertion order is preserved so the classpath is identical regardless of download completion order
+        Map<Path, Artifact> artifacts = new LinkedHashMap<>();
         for (Library library : libraries) {
             if (!checkRules(library.getRules())) {
                 continue;
@@ -142,36 +182,116 @@ public class MinecraftIntegration extends Integration {
             
             Artifact libraryArtifact = library.getDownloads().getArtifact();
             if (libraryArtifact != null) {
-                Path path = Analysis.getInstance().getLibrariesPath().resolve(libraryArtifact.getPath());
-                if (downloadArtifact(libraryArtifact, path)) {
-                    Analysis.getInstance().getClassLoader().addPath(path);
-                }
+                artifacts.putIfAbsent(Analysis.getInstance().getLibrariesPath().resolve(libraryArtifact.getPath()), libraryArtifact);
             }
             
             Artifact nativeArtifact = library.getNative();
             if (nativeArtifact != null) {
-                Path path = Analysis.getInstance().getLibrariesPath().resolve(nativeArtifact.getPath());
-                if (downloadArtifact(nativeArtifact, path)) {
-                    Analysis.getInstance().getClassLoader().addPath(path);
-                }
+                artifacts.putIfAbsent(Analysis.getInstance().getLibrariesPath().resolve(nativeArtifact.getPath()), nativeArtifact);
+            }
+        }
+        
+        verifyArtifacts(artifacts);
+        
+        Profiler parent = Profiler.current();
+        Map<Path, Future<Boolean>> downloads = new LinkedHashMap<>();
+        for (Map.Entry<Path, Artifact> entry : artifacts.entrySet()) {
+            downloads.put(entry.getKey(), scheduler.submit(entry.getValue().getUrl(), () -> downloadArtifact(entry.getValue(), entry.getKey(), parent)));
+        }
+        
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<Path, Future<Boolean>> entry : downloads.entrySet()) {
+            if (entry.getValue().get()) {
+                Analysis.getInstance().getClassLoader().addPath(entry.getKey());
+            } else {
+                failures.add(entry.getKey().getFileName().toString());
             }
         }
+        
+        if (!failures.isEmpty()) {
+            Analysis.getInstance().getLogger().error("Failed to install {} libraries: {}", failures.size(), String.join(", ", failures));
+        }
     }
     
-    private boolean downloadArtifact(Artifact artifact, Path path) {
-        try {
-            if (Files.exists(path) && Files.size(path) == artifact.getSize() && HashUtils.sha1(path, artifact.getHash())) {
-                Analysis.getInstance().getLogger().info("Verified {}", path.getFileName());
+    /**
+     * Hashes every existing artifact which cannot be verified from the ledger in a single batch, recording matches so
+     * the subsequent {@link #downloadArtifact(Artifact, Path, Profiler)} calls are metadata lookups.
+     */
+    private void verifyArtifacts(Map<Path, Artifact> artifacts) throws InterruptedException, IOException {
+        Map<Path, Artifact> candidates = new LinkedHashMap<>();
+        for (Map.Entry<Path, Artifact> entry : artifacts.entrySet()) {
+            Path path = entry.getKey();
+            Artifact artifact = entry.getValue();
+            if (Files.exists(path) && Files.size(path) == artifact.getSize()
+                    && !ledger.isVerified(path, artifact.getHash(), Analysis.getInstance().getConfig().isReverify())) {
+                candidates.put(path, artifact);
+            }
+        }
+        
+        if (candidates.isEmpty()) {
+            return;
+        }
+        
+        Map<Path, String> hashes;
+        try (Profiler profiler = Profiler.start("Verify")) {
+            hashes = HashUtils.sha1(candidates.keySet(), Runtime.getRuntime().availableProcessors());
+        }
+        
+        for (Map.Entry<Path, String> entry : hashes.entrySet()) {
+            String hash = candidates.get(entry.getKey()).getHash();
+            if (entry.getValue().equalsIgnoreCase(hash)) {
+                ledger.record(entry.getKey(), hash);
+            }
+        }
+        
+        Analysis.getInstance().getLogger().debug("Hashed {} libraries", hashes.size());
+    }
+    
+    private boolean downloadArtifact(Artifact artifact, Path path, Profiler parent) {
+        Path objectPath = store.getPath(artifact.getHash());
+        try (Profiler profiler = Profiler.trace(path.getFileName().toString(), parent)) {
+            synchronized (store.getLock(artifact.getHash())) {
+                if (verifyArtifact(artifact, path)) {
+                    // Import files which were downloaded before they were tracked by the store
+                    if (!Files.exists(objectPath)) {
+                        store.link(path, objectPath);
+                        ledger.record(objectPath, artifact.getHash());
+                    }
+                    
+                    Analysis.getInstance().getLogger().info("Verified {}", path.getFileName());
+                    MetricManager.ARTIFACTS.labels("verified").inc();
+                    return true;
+                }
+                
+                String result = "linked";
+                if (!verifyArtifact(artifact, objectPath)) {
+                    if (!downloadFile(artifact.getUrl(), objectPath, artifact.getSize(), artifact.getHash())) {
+                        MetricManager.ARTIFACTS.labels("failed").inc();
+                        return false;
+                    }
+                    
+                    ledger.record(objectPath, artifact.getHash());
+                    result = "downloaded";
+                }
+                
+                store.link(objectPath, path);
+                ledger.record(path, artifact.getHash());
+                Analysis.getInstance().getLogger().info("Linked {} ({})", path.getFileName(), artifact.getHash());
+                MetricManager.ARTIFACTS.labels(result).inc();
                 return true;
             }
-            
-            return downloadFile(artifact.getUrl(), path, artifact.getSize(), artifact.getHash());
         } catch (Exception ex) {
+            MetricManager.ARTIFACTS.labels("failed").inc();
             Analysis.getInstance().getLogger().error("Encountered an error while downloading {} ({})", path.getFileName(), artifact.getUrl(), ex);
             return false;
         }
     }
     
+    private boolean verifyArtifact(Artifact artifact, Path path) throws IOException {
+        return Files.exists(path) && Files.size(path) == artifact.getSize()
+                && ledger.verify(path, artifact.getHash(), Analysis.getInstance().getConfig().isReverify());
+    }
+    
     private boolean checkRules(Collection<Rule> rules) {
         if (rules == null || rules.isEmpty()) {
             return true;
@@ -188,32 +308,56 @@ public class MinecraftIntegration extends Integration {
     }
     
     private Version findVersion() {
-        Path path = Paths.get("version_manifest.json");
-        if (Files.exists(path)) {
-            Version version = findVersion(path);
-            if (version != null) {
-                return version;
-            }
+        VersionList versionList = getVersionList(false);
+        if (versionList == null) {
+            return null;
+        }
+        
+        Version version = versionList.getVersion(Analysis.getInstance().getConfig().getVersion());
+        if (version != null) {
+            return version;
         }
         
-        if (downloadFile("https://launchermeta.mojang.com/mc/game/version_manifest.json", path)) {
-            return findVersion(path);
+        // The version may have been released since the manifest was last revalidated
+        versionList = getVersionList(true);
+        if (versionList != null) {
+            return versionList.getVersion(Analysis.getInstance().getConfig().getVersion());
         }
         
         return null;
     }
     
-    private Version findVersion(Path path) {
-        VersionList versionList = deserialize(path, VersionList.class);
-        if (versionList == null) {
+    /**
+     * Returns the version manifest, revalidating it once it is older than the configured TTL or if {@code revalidate}
+     * is set.
+     */
+    public static VersionList getVersionList(boolean revalidate) {
+        Path path = Paths.get("version_manifest.json");
+        if (!cacheFile(VERSION_MANIFEST_URL, path, revalidate ? 0 : getManifestTtl())) {
             return null;
         }
         
-        return versionList.getVersion(Analysis.getInstance().getConfig().getVersion());
+        return deserialize(path, VersionList.class);
     }
     
-    private boolean downloadFile(String url, Path path) {
-        return downloadFile(url, path, -1, null);
+    private static boolean cacheFile(String url, Path path, long ttl) {
+        try {
+            if (WebUtils.cacheFile(new URL(url), path, ttl)) {
+                Analysis.getInstance().getLogger().info("Downloaded {}", path.getFileName());
+            } else {
+                Analysis.getInstance().getLogger().debug("Using cached {}", path.getFileName());
+            }
+            
+            return true;
+        } catch (Exception ex) {
+            if (Files.exists(path)) {
+                Analysis.getInstance().getLogger().warn("Encountered an error while revalidating {} ({}), using cached copy", path.getFileName(), url, ex);
+                return true;
+            }
+            
+            Analysis.getInstance().getLogger().error("Encountered an error while downloading {} ({})", path.getFileName(), url, ex);
+            return false;
+        }
     }
     
     private boolean downloadFile(String url, Path path, long length, String hash) {
@@ -228,7 +372,11 @@ public class MinecraftIntegration extends Integration {
         }
     }
     
-    private <T> T deserialize(Path path, Class<T> type) {
+    private static long getManifestTtl() {
+        return TimeUnit.SECONDS.toMillis(Analysis.getInstance().getConfig().getManifestTtl());
+    }
+    
+    private static <T> T deserialize(Path path, Class<T> type) {
         try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
             return Toolbox.GSON.fromJson(reader, type);
         } catch (Exception ex) {
@@ -237,6 +385,14 @@ public class MinecraftIntegration extends Integration {
         }
     }
     
+    public ArtifactLedger getLedger() {
+        return ledger;
+    }
+    
+    public ArtifactStore getStore() {
+        return store;
+    }
+    
     public Version getVersion() {
         return version;
     }
@@ -19,6 +19,7 @@ package io.github.lxgaming.analysis.common.integration.minecraft;
 import io.github.lxgaming.analysis.common.Analysis;
 import io.github.lxgaming.analysis.common.integration.Integration;
 import io.github.lxgaming.analysis.common.manager.IntegrationManager;
+import io.github.lxgaming.analysis.common.util.MappingSnapshot;
 import io.github.lxgaming.analysis.common.util.WebUtils;
 import net.fabricmc.mapping.tree.ClassDef;
 import net.fabricmc.mapping.tree.FieldDef;
@@ -27,6 +28,7 @@ import net.fabricmc.mapping.tree.TinyMappingFactory;
 import net.fabricmc.mapping.tree.TinyTree;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.nio.file.Files;
@@ -35,7 +37,7 @@ import java.nio.file.Path;
 public class YarnIntegration extends Integration {
     
     private URL url;
-    private TinyTree tinyTree;
+    private MappingSnapshot mapping;
     
     @Override
     public boolean prepare() {
@@ -70,9 +72,7 @@ public class YarnIntegration extends Integration {
             }
         }
         
-        try (BufferedReader reader = Files.newBufferedReader(mappingPath)) {
-            this.tinyTree = TinyMappingFactory.loadWithDetection(reader, true);
-        }
+        this.mapping = MappingSnapshot.open(mappingPath, mappingPath.resolveSibling("mapping.tiny.bin"), this::loadMapping);
     }
     
     @Override
@@ -80,27 +80,27 @@ public class YarnIntegration extends Integration {
         // no-op
     }
     
-    public String getField(ClassDef classDef, String name) {
-        for (FieldDef fieldDef : classDef.getFields()) {
-            if (name.equals(fieldDef.getName("official"))) {
-                return fieldDef.getName("intermediary");
-            }
+    private void loadMapping(Path path, MappingSnapshot.Builder builder) throws IOException {
+        TinyTree tinyTree;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            tinyTree = TinyMappingFactory.loadWithDetection(reader, true);
         }
         
-        return name;
-    }
-    
-    public String getMethod(ClassDef classDef, String name, String desc) {
-        for (MethodDef methodDef : classDef.getMethods()) {
-            if (name.equals(methodDef.getName("official")) && desc.equals(methodDef.getDescriptor("official"))) {
-                return methodDef.getName("intermediary");
+        for (ClassDef classDef : tinyTree.getClasses()) {
+            MappingSnapshot.ClassBuilder classBuilder = builder.addClass(classDef.getName("official"), classDef.getName("intermediary"));
+            for (FieldDef fieldDef : classDef.getFields()) {
+                classBuilder.addField(fieldDef.getName("official"), fieldDef.getName("intermediary"));
+            }
+            
+            for (MethodDef methodDef : classDef.getMethods()) {
+                classBuilder.addMethod(methodDef.getName("official"), methodDef.getDescriptor("official"), methodDef.getName("intermediary"));
             }
         }
         
-        return name;
+        Analysis.getInstance().getLogger().debug("Created Yarn Mapping Snapshot");
     }
     
-    public TinyTree getTinyTree() {
-        return tinyTree;
+    public MappingSnapshot getMapping() {
+        return mapping;
     }
 }
\ No newline at end of file
@@ -16,14 +16,20 @@
 
 package io.github.lxgaming.analysis.common.integration.reconstruct;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import io.github.lxgaming.analysis.common.Analysis;
 import io.github.lxgaming.analysis.common.configuration.ReconstructConfig;
+import io.github.lxgaming.analysis.common.entity.ColumnType;
 import io.github.lxgaming.analysis.common.integration.Integration;
 import io.github.lxgaming.analysis.common.integration.minecraft.MCPIntegration;
+import io.github.lxgaming.analysis.common.integration.minecraft.MinecraftIntegration;
 import io.github.lxgaming.analysis.common.integration.minecraft.YarnIntegration;
 import io.github.lxgaming.analysis.common.manager.IntegrationManager;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
+import io.github.lxgaming.analysis.common.util.ColumnarWriter;
+import io.github.lxgaming.analysis.common.util.MappingCoverage;
+import io.github.lxgaming.analysis.common.util.MappingSnapshot;
+import io.github.lxgaming.analysis.common.util.Profiler;
 import io.github.lxgaming.reconstruct.common.Reconstruct;
 import io.github.lxgaming.reconstruct.common.bytecode.Attribute;
 import io.github.lxgaming.reconstruct.common.bytecode.Attributes;
@@ -32,12 +38,18 @@ import io.github.lxgaming.reconstruct.common.bytecode.RcClass;
 import io.github.lxgaming.reconstruct.common.bytecode.RcField;
 import io.github.lxgaming.reconstruct.common.bytecode.RcMethod;
 import io.github.lxgaming.reconstruct.common.util.Toolbox;
-import net.fabricmc.mapping.tree.ClassDef;
-import net.minecraftforge.srgutils.IMappingFile;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
 
 public class ReconstructIntegration extends Integration {
     
@@ -48,6 +60,8 @@ public class ReconstructIntegration extends Integration {
     
     @Override
     public boolean prepare() {
+        addDependency(MinecraftIntegration.class);
+        
         config.getExcludedPackages().add("com.google.");
         config.getExcludedPackages().add("com.mojang.");
         config.getExcludedPackages().add("io.netty.");
@@ -74,14 +88,31 @@ public class ReconstructIntegration extends Integration {
             Path temporaryOutputPath = outputPath.resolveSibling(outputPath.getFileName().toString() + ".tmp");
             config.setOutputPath(temporaryOutputPath);
             
-            Reconstruct reconstruct = new Reconstruct(config);
-            reconstruct.load();
+            try (Profiler profiler = Profiler.start("Deobfuscate")) {
+                Reconstruct reconstruct = new Reconstruct(config);
+                reconstruct.load();
+            }
             
             config.setOutputPath(outputPath);
             Files.move(temporaryOutputPath, outputPath, StandardCopyOption.REPLACE_EXISTING);
             
-            applyMappings();
-            writeMappings();
+            List<RcClass> classes = getClasses();
+            MappingCoverage coverage;
+            try (Profiler profiler = Profiler.start("Apply Mappings")) {
+                coverage = applyMappings(classes);
+            }
+            
+            boolean mappingsWritten;
+            boolean coverageWritten;
+            try (Profiler profiler = Profiler.start("Write Mappings")) {
+                mappingsWritten = writeMappings(classes);
+                coverageWritten = Analysis.getInstance().write("mapping-coverage", coverage::write);
+            }
+            
+            if (!mappingsWritten || !coverageWritten) {
+                throw new IllegalStateException("Failed to write mappings");
+            }
+            
             return true;
         } catch (Exception ex) {
             Analysis.getInstance().getLogger().error("Encountered an error during reconstruction", ex);
@@ -91,10 +122,11 @@ public class ReconstructIntegration extends Integration {
         }
     }
     
-    private void applyMappings() {
-        MCPIntegration mcpIntegration = IntegrationManager.getIntegration(MCPIntegration.class);
-        YarnIntegration yarnIntegration = IntegrationManager.getIntegration(YarnIntegration.class);
-        
+    /**
+     * Returns the classes eligible for mapping, sorted by name so output is independent of load and scheduling order.
+     */
+    public List<RcClass> getClasses() {
+        List<RcClass> classes = new ArrayList<>();
         for (RcClass rcClass : Reconstruct.getInstance().getClasses()) {
             if (rcClass instanceof RcArray) {
                 continue;
@@ -104,176 +136,301 @@ public class ReconstructIntegration extends Integration {
                 continue;
             }
             
-            String obfuscatedClassName = rcClass.getAttribute(Attributes.OBFUSCATED_NAME).orElse(rcClass.getName());
-            if (obfuscatedClassName.equals(rcClass.getName()) && !rcClass.getName().startsWith("net.minecraft.")) {
+            classes.add(rcClass);
+        }
+        
+        classes.sort(Comparator.comparing(RcClass::getName));
+        return classes;
+    }
+    
+    public MappingCoverage applyMappings(List<RcClass> classes) {
+        MCPIntegration mcpIntegration = IntegrationManager.getIntegration(MCPIntegration.class);
+        YarnIntegration yarnIntegration = IntegrationManager.getIntegration(YarnIntegration.class);
+        return applyMappings(classes, mcpIntegration != null ? mcpIntegration.getMapping() : null, yarnIntegration != null ? yarnIntegration.getMapping() : null);
+    }
+    
+    /**
+     * Applies the mappings to every class concurrently. Unknown members are aggregated into the returned
+     * {@link MappingCoverage} and only a sample of them is logged, as logging each one dominated this phase.
+     */
+    public MappingCoverage applyMappings(List<RcClass> classes, MappingSnapshot mcpMapping, MappingSnapshot yarnMapping) {
+        MappingCoverage coverage = new MappingCoverage(mcpMapping != null, yarnMapping != null, Analysis.getInstance().getConfig().getMappingLogInterval());
+        int threads = Analysis.getInstance().getConfig().getThreads();
+        ForkJoinPool forkJoinPool = new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        try {
+            forkJoinPool.invoke(new MappingTask(classes, 0, classes.size(), mcpMapping, yarnMapping, coverage, Profiler.current()));
+        } finally {
+            forkJoinPool.shutdown();
+        }
+        
+        logCoverage(coverage);
+        return coverage;
+    }
+    
+    private void applyMapping(RcClass rcClass, MappingSnapshot mcpMapping, MappingSnapshot yarnMapping, MappingCoverage coverage) {
+        String obfuscatedClassName = rcClass.getAttribute(Attributes.OBFUSCATED_NAME).orElse(rcClass.getName());
+        if (obfuscatedClassName.equals(rcClass.getName()) && !rcClass.getName().startsWith("net.minecraft.")) {
+            return;
+        }
+        
+        MappingCoverage.Entry entry = coverage.getEntry(rcClass.getName());
+        MappingSnapshot.ClassMapping mcpClass = mcpMapping != null ? mcpMapping.getClass(Toolbox.toJvmName(obfuscatedClassName)) : null;
+        if (mcpClass != null) {
+            setAttribute(rcClass, MCP_NAME, Toolbox.toJvmName(mcpClass.getMapped()));
+        } else if (mcpMapping != null) {
+            logUnknown(coverage, "MCP", "Class", rcClass.getName());
+        }
+        
+        MappingSnapshot.ClassMapping yarnClass = yarnMapping != null ? yarnMapping.getClass(Toolbox.toJvmName(obfuscatedClassName)) : null;
+        if (yarnClass != null) {
+            setAttribute(rcClass, YARN_NAME, Toolbox.toJvmName(yarnClass.getMapped()));
+        } else if (yarnMapping != null) {
+            logUnknown(coverage, "Yarn", "Class", rcClass.getName());
+        }
+        
+        entry.record(MappingCoverage.Kind.CLASS, mcpClass != null, yarnClass != null);
+        
+        for (RcField rcField : rcClass.getFields()) {
+            String obfuscatedFieldName = rcField.getAttribute(Attributes.OBFUSCATED_NAME).orElse(null);
+            if (obfuscatedFieldName == null || obfuscatedFieldName.equals(rcField.getName())) {
                 continue;
             }
             
-            IMappingFile.IClass mcpClass;
-            if (mcpIntegration != null && mcpIntegration.getMappingFile() != null) {
-                mcpClass = mcpIntegration.getMappingFile().getClass(Toolbox.toJvmName(obfuscatedClassName));
-                if (mcpClass != null) {
-                    String mcpClassName = Toolbox.toJvmName(mcpClass.getMapped());
-                    rcClass.setAttribute(MCP_NAME, mcpClassName);
-                    Analysis.getInstance().getLogger().debug("MCP Class: {} -> {}", rcClass.getName(), mcpClassName);
-                } else {
-                    Analysis.getInstance().getLogger().warn("Unknown MCP Class: {}", rcClass.getName());
-                }
-            } else {
-                mcpClass = null;
+            String mcpFieldName = mcpClass != null ? mcpClass.remapField(obfuscatedFieldName) : null;
+            boolean mcpMapped = mcpFieldName != null && !mcpFieldName.equals(obfuscatedFieldName);
+            if (mcpMapped) {
+                setAttribute(rcField, MCP_NAME, mcpFieldName);
+            } else if (mcpClass != null) {
+                logUnknown(coverage, "MCP", "Field", rcField.getName());
             }
             
-            ClassDef yarnClass;
-            if (yarnIntegration != null && yarnIntegration.getTinyTree() != null) {
-                yarnClass = yarnIntegration.getTinyTree().getDefaultNamespaceClassMap().get(Toolbox.toJvmName(obfuscatedClassName));
-                if (yarnClass != null) {
-                    String yarnClassName = Toolbox.toJvmName(yarnClass.getName("intermediary"));
-                    rcClass.setAttribute(YARN_NAME, yarnClassName);
-                    Analysis.getInstance().getLogger().debug("Yarn Class: {} -> {}", rcClass.getName(), yarnClassName);
-                } else {
-                    Analysis.getInstance().getLogger().warn("Unknown Yarn Class: {}", rcClass.getName());
-                }
-            } else {
-                yarnClass = null;
+            String yarnFieldName = yarnClass != null ? yarnClass.remapField(obfuscatedFieldName) : null;
+            boolean yarnMapped = yarnFieldName != null && !yarnFieldName.equals(obfuscatedFieldName);
+            if (yarnMapped) {
+                setAttribute(rcField, YARN_NAME, yarnFieldName);
+            } else if (yarnClass != null) {
+                logUnknown(coverage, "Yarn", "Field", rcField.getName());
             }
             
-            if (mcpClass == null && yarnClass == null) {
+            entry.record(MappingCoverage.Kind.FIELD, mcpMapped, yarnMapped);
+        }
+        
+        for (RcMethod rcMethod : rcClass.getMethods()) {
+            String obfuscatedMethodDescriptor = rcMethod.getAttribute(Attributes.OBFUSCATED_DESCRIPTOR).orElse(null);
+            if (obfuscatedMethodDescriptor == null || obfuscatedMethodDescriptor.equals(rcMethod.getDescriptor())) {
                 continue;
             }
             
-            for (RcField rcField : rcClass.getFields()) {
-                String obfuscatedFieldName = rcField.getAttribute(Attributes.OBFUSCATED_NAME).orElse(null);
-                if (obfuscatedFieldName == null || obfuscatedFieldName.equals(rcField.getName())) {
-                    continue;
-                }
-                
-                if (mcpClass != null) {
-                    String mcpFieldName = mcpClass.remapField(obfuscatedFieldName);
-                    if (mcpFieldName != null && !mcpFieldName.equals(obfuscatedFieldName)) {
-                        rcField.setAttribute(MCP_NAME, mcpFieldName);
-                        Analysis.getInstance().getLogger().debug("MCP Field: {} -> {}", rcField.getName(), mcpFieldName);
-                    } else {
-                        Analysis.getInstance().getLogger().warn("Unknown MCP Field: {}", rcField.getName());
-                    }
-                }
-                
-                if (yarnClass != null) {
-                    String yarnFieldName = yarnIntegration.getField(yarnClass, obfuscatedFieldName);
-                    if (yarnFieldName != null && !yarnFieldName.equals(obfuscatedFieldName)) {
-                        rcField.setAttribute(YARN_NAME, yarnFieldName);
-                        Analysis.getInstance().getLogger().debug("Yarn Field: {} -> {}", rcField.getName(), yarnFieldName);
-                    } else {
-                        Analysis.getInstance().getLogger().warn("Unknown Yarn Field: {}", rcField.getName());
-                    }
-                }
+            int index = obfuscatedMethodDescriptor.indexOf('(');
+            if (index == -1) {
+                continue;
             }
             
-            for (RcMethod rcMethod : rcClass.getMethods()) {
-                String obfuscatedMethodDescriptor = rcMethod.getAttribute(Attributes.OBFUSCATED_DESCRIPTOR).orElse(null);
-                if (obfuscatedMethodDescriptor == null || obfuscatedMethodDescriptor.equals(rcMethod.getDescriptor())) {
-                    continue;
-                }
-                
-                int index = obfuscatedMethodDescriptor.indexOf('(');
-                if (index == -1) {
-                    continue;
-                }
-                
-                String obfuscatedMethodName = obfuscatedMethodDescriptor.substring(0, index);
-                String obfuscatedMethodDesc = obfuscatedMethodDescriptor.substring(index);
-                
-                if (mcpClass != null) {
-                    String mcpMethodName = mcpClass.remapMethod(obfuscatedMethodName, obfuscatedMethodDesc);
-                    if (mcpMethodName != null && !mcpMethodName.equals(obfuscatedMethodName)) {
-                        rcMethod.setAttribute(MCP_NAME, mcpMethodName);
-                        Analysis.getInstance().getLogger().debug("MCP Method: {} -> {}", rcMethod.getName(), mcpMethodName);
-                    } else {
-                        Analysis.getInstance().getLogger().warn("Unknown MCP Method: {}", rcMethod.getName());
-                    }
-                }
-                
-                if (yarnClass != null) {
-                    String yarnMethodName = yarnIntegration.getMethod(yarnClass, obfuscatedMethodName, obfuscatedMethodDesc);
-                    if (yarnMethodName != null && !yarnMethodName.equals(obfuscatedMethodName)) {
-                        rcMethod.setAttribute(YARN_NAME, yarnMethodName);
-                        Analysis.getInstance().getLogger().debug("Yarn Method: {} -> {}", rcMethod.getName(), yarnMethodName);
-                    } else {
-                        Analysis.getInstance().getLogger().warn("Unknown Yarn Method: {}", rcMethod.getName());
-                    }
-                }
+            String obfuscatedMethodName = obfuscatedMethodDescriptor.substring(0, index);
+            String obfuscatedMethodDesc = obfuscatedMethodDescriptor.substring(index);
+            
+            String mcpMethodName = mcpClass != null ? mcpClass.remapMethod(obfuscatedMethodName, obfuscatedMethodDesc) : null;
+            boolean mcpMapped = mcpMethodName != null && !mcpMethodName.equals(obfuscatedMethodName);
+            if (mcpMapped) {
+                setAttribute(rcMethod, MCP_NAME, mcpMethodName);
+            } else if (mcpClass != null) {
+                logUnknown(coverage, "MCP", "Method", rcMethod.getName());
             }
+            
+            String yarnMethodName = yarnClass != null ? yarnClass.remapMethod(obfuscatedMethodName, obfuscatedMethodDesc) : null;
+            boolean yarnMapped = yarnMethodName != null && !yarnMethodName.equals(obfuscatedMethodName);
+            if (yarnMapped) {
+                setAttribute(rcMethod, YARN_NAME, yarnMethodName);
+            } else if (yarnClass != null) {
+                logUnknown(coverage, "Yarn", "Method", rcMethod.getName());
+            }
+            
+            entry.record(MappingCoverage.Kind.METHOD, mcpMapped, yarnMapped);
         }
     }
     
-    private void writeMappings() {
-        JsonArray mapping = new JsonArray();
-        for (RcClass rcClass : Reconstruct.getInstance().getClasses()) {
-            if (rcClass instanceof RcArray) {
-                continue;
-            }
-            
-            if (rcClass.getName().endsWith(".package-info")) {
-                continue;
+    private void logUnknown(MappingCoverage coverage, String mapping, String kind, String name) {
+        if (coverage.sample()) {
+            Analysis.getInstance().getLogger().warn("Unknown {} {}: {}", mapping, kind, name);
+        }
+    }
+    
+    private void logCoverage(MappingCoverage coverage) {
+        for (MappingCoverage.Kind kind : MappingCoverage.Kind.values()) {
+            String kindName = kind.name().toLowerCase();
+            long total = coverage.getTotal(kind);
+            long mapped = coverage.getTotal(kind, MappingCoverage.Status.MAPPED);
+            if (coverage.isMcp()) {
+                long mcpMapped = mapped + coverage.getTotal(kind, MappingCoverage.Status.MCP_ONLY);
+                Analysis.getInstance().getLogger().info("Mapped MCP {}: {} of {}", kind.getName(), mcpMapped, total);
+                MetricManager.UNKNOWN_MEMBERS.labels("mcp", kindName).inc(total - mcpMapped);
             }
             
-            JsonObject classMapping = createMapping(rcClass, rcClass.getName());
-            if (classMapping == null) {
-                continue;
+            if (coverage.isYarn()) {
+                long yarnMapped = mapped + coverage.getTotal(kind, MappingCoverage.Status.YARN_ONLY);
+                Analysis.getInstance().getLogger().info("Mapped Yarn {}: {} of {}", kind.getName(), yarnMapped, total);
+                MetricManager.UNKNOWN_MEMBERS.labels("yarn", kindName).inc(total - yarnMapped);
             }
-            
-            mapping.add(classMapping);
-            
-            JsonArray fields = new JsonArray();
-            for (RcField rcField : rcClass.getFields()) {
-                JsonObject fieldMapping = createMapping(rcField, rcField.getName());
-                if (fieldMapping == null) {
+        }
+        
+        long mapped = coverage.getTotal(MappingCoverage.Kind.CLASS, MappingCoverage.Status.MAPPED);
+        if (coverage.isMcp()) {
+            MetricManager.REMAPPED_CLASSES.labels("mcp").inc(mapped + coverage.getTotal(MappingCoverage.Kind.CLASS, MappingCoverage.Status.MCP_ONLY));
+        }
+        
+        if (coverage.isYarn()) {
+            MetricManager.REMAPPED_CLASSES.labels("yarn").inc(mapped + coverage.getTotal(MappingCoverage.Kind.CLASS, MappingCoverage.Status.YARN_ONLY));
+        }
+    }
+    
+    /**
+     * @return {@code true} if the mapping output, and the columnar output if enabled, was written.
+     */
+    public boolean writeMappings(List<RcClass> classes) {
+        ColumnarWriter columnarWriter;
+        if (Analysis.getInstance().getConfig().isColumnar()) {
+            columnarWriter = new ColumnarWriter()
+                    .addColumn("kind", ColumnType.STRING)
+                    .addColumn("owner", ColumnType.STRING)
+                    .addColumn("mcp", ColumnType.STRING)
+                    .addColumn("mojang", ColumnType.STRING)
+                    .addColumn("obfuscated", ColumnType.STRING)
+                    .addColumn("yarn", ColumnType.STRING);
+        } else {
+            columnarWriter = null;
+        }
+        
+        boolean written = Analysis.getInstance().write("mapping", sink -> {
+            for (RcClass rcClass : classes) {
+                if (!isMapped(rcClass, rcClass.getName())) {
                     continue;
                 }
                 
-                fields.add(fieldMapping);
+                JsonWriter jsonWriter = sink.beginRecord();
+                beginMapping(jsonWriter, rcClass, rcClass.getName());
+                addMapping(columnarWriter, "class", null, rcClass, rcClass.getName());
+                writeMappings(jsonWriter, columnarWriter, "fields", "field", rcClass, rcClass.getFields(), RcField::getName);
+                writeMappings(jsonWriter, columnarWriter, "methods", "method", rcClass, rcClass.getMethods(), RcMethod::getName);
+                jsonWriter.endObject();
+                sink.endRecord();
             }
-            
-            if (fields.size() != 0) {
-                classMapping.add("fields", fields);
+        });
+        
+        // The columnar table was filled alongside the JSON output, so it is incomplete if that failed
+        if (written && columnarWriter != null) {
+            return Analysis.getInstance().writeColumnar("mapping", columnarWriter);
+        }
+        
+        return written;
+    }
+    
+    private <T extends Attributes> void writeMappings(JsonWriter jsonWriter, ColumnarWriter columnarWriter, String name, String kind, RcClass owner,
+                                                      Collection<T> members, Function<T, String> nameFunction) throws IOException {
+        boolean empty = true;
+        for (T member : members) {
+            String memberName = nameFunction.apply(member);
+            if (!isMapped(member, memberName)) {
+                continue;
             }
             
-            JsonArray methods = new JsonArray();
-            for (RcMethod rcMethod : rcClass.getMethods()) {
-                JsonObject methodMapping = createMapping(rcMethod, rcMethod.getName());
-                if (methodMapping == null) {
-                    continue;
-                }
-                
-                methods.add(methodMapping);
+            if (empty) {
+                jsonWriter.name(name).beginArray();
+                empty = false;
             }
             
-            if (methods.size() != 0) {
-                classMapping.add("methods", methods);
-            }
+            beginMapping(jsonWriter, member, memberName);
+            jsonWriter.endObject();
+            addMapping(columnarWriter, kind, owner.getName(), member, memberName);
         }
         
-        Analysis.getInstance().write("mapping", mapping);
+        if (!empty) {
+            jsonWriter.endArray();
+        }
     }
     
-    private JsonObject createMapping(Attributes attributes, String name) {
+    private boolean isMapped(Attributes attributes, String name) {
         String obfuscatedName = attributes.getAttribute(Attributes.OBFUSCATED_NAME).orElse(name);
-        if (obfuscatedName.equals(name) && !name.startsWith("net.minecraft.")) {
-            return null;
+        return !obfuscatedName.equals(name) || name.startsWith("net.minecraft.");
+    }
+    
+    /**
+     * Begins a mapping object for the provided {@link Attributes}, leaving it open for nested members.
+     */
+    private void beginMapping(JsonWriter jsonWriter, Attributes attributes, String name) throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("mcp").value(attributes.getAttribute(MCP_NAME).map(Toolbox::toJavaName).orElse(null));
+        jsonWriter.name("mojang").value(name);
+        jsonWriter.name("obfuscated").value(attributes.getAttribute(Attributes.OBFUSCATED_NAME).orElse(name));
+        jsonWriter.name("yarn").value(attributes.getAttribute(YARN_NAME).map(Toolbox::toJavaName).orElse(null));
+    }
+    
+    private void addMapping(ColumnarWriter columnarWriter, String kind, String owner, Attributes attributes, String name) {
+        if (columnarWriter == null) {
+            return;
         }
         
-        String mcpName = attributes.getAttribute(MCP_NAME).map(Toolbox::toJavaName).orElse(null);
-        String yarnName = attributes.getAttribute(YARN_NAME).map(Toolbox::toJavaName).orElse(null);
-        
-        JsonObject jsonObject = new JsonObject();
-        jsonObject.addProperty("mcp", mcpName);
-        jsonObject.addProperty("mojang", name);
-        jsonObject.addProperty("obfuscated", obfuscatedName);
-        jsonObject.addProperty("yarn", yarnName);
-        
-        return jsonObject;
+        columnarWriter.addRow(
+                kind,
+                owner,
+                attributes.getAttribute(MCP_NAME).map(Toolbox::toJavaName).orElse(null),
+                name,
+                attributes.getAttribute(Attributes.OBFUSCATED_NAME).orElse(name),
+                attributes.getAttribute(YARN_NAME).map(Toolbox::toJavaName).orElse(null)
+        );
+    }
+    
+    /**
+     * Attributes are backed by a plain map, writes are serialized per owner so concurrent mapping tasks stay safe.
+     */
+    private static <T> void setAttribute(Attributes attributes, Attribute.Key<T> key, T value) {
+        synchronized (attributes) {
+            attributes.setAttribute(key, value);
+        }
     }
     
     public ReconstructConfig getConfig() {
         return config;
     }
-}
\ No newline at end of file
+    
+    private class MappingTask extends RecursiveAction {
+        
+        private static final int THRESHOLD = 64;
+        
+        private final List<RcClass> classes;
+        private final int start;
+        private final int end;
+        private final MappingSnapshot mcpMapping;
+        private final MappingSnapshot yarnMapping;
+        private final MappingCoverage coverage;
+        private final Profiler parent;
+        
+        private MappingTask(List<RcClass> classes, int start, int end, MappingSnapshot mcpMapping, MappingSnapshot yarnMapping, MappingCoverage coverage, Profiler parent) {
+            this.classes = classes;
+            this.start = start;
+            this.end = end;
+            this.mcpMapping = mcpMapping;
+            this.yarnMapping = yarnMapping;
+            this.coverage = coverage;
+            this.parent = parent;
+        }
+        
+        @Override
+        protected void compute() {
+            if (end - start <= THRESHOLD) {
+                try (Profiler profiler = Profiler.trace("Mapping Task", parent)) {
+                    for (int index = start; index < end; index++) {
+                        applyMapping(classes.get(index), mcpMapping, yarnMapping, coverage);
+                    }
+                }
+                
+                return;
+            }
+            
+            int middle = (start + end) >>> 1;
+            invokeAll(
+                    new MappingTask(classes, start, middle, mcpMapping, yarnMapping, coverage, parent),
+                    new MappingTask(classes, middle, end, mcpMapping, yarnMapping, coverage, parent)
+            );
+        }
+    }
+}
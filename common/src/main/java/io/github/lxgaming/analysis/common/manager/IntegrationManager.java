@@ -22,11 +22,21 @@ import io.github.lxgaming.analysis.common.integration.minecraft.MCPIntegration;
 import io.github.lxgaming.analysis.common.integration.minecraft.MinecraftIntegration;
 import io.github.lxgaming.analysis.common.integration.minecraft.YarnIntegration;
 import io.github.lxgaming.analysis.common.integration.reconstruct.ReconstructIntegration;
+import io.github.lxgaming.analysis.common.util.Profiler;
 import io.github.lxgaming.analysis.common.util.Toolbox;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public final class IntegrationManager {
     
@@ -44,12 +54,20 @@ public final class IntegrationManager {
     }
     
     public static void execute() {
-        for (Integration integration : INTEGRATIONS) {
-            try {
-                integration.execute();
-            } catch (Exception ex) {
-                Analysis.getInstance().getLogger().error("Encountered an error while executing {}", Toolbox.getClassSimpleName(integration.getClass()), ex);
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(INTEGRATIONS.size(), 1), Toolbox.newThreadFactory("Integration Thread #%d"));
+        try {
+            Profiler parent = Profiler.current();
+            Map<Class<? extends Integration>, CompletableFuture<Void>> futures = new HashMap<>();
+            for (Integration integration : INTEGRATIONS) {
+                schedule(integration, futures, new HashSet<>(), parent, executorService);
             }
+            
+            // Failures have already been logged by the integration which failed or the dependents which were skipped
+            CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0])).handle((result, throwable) -> null).join();
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while executing integrations", ex);
+        } finally {
+            executorService.shutdownNow();
         }
     }
     
@@ -61,6 +79,9 @@ public final class IntegrationManager {
                 Analysis.getInstance().getLogger().error("Encountered an error while shutting down {}", Toolbox.getClassSimpleName(integration.getClass()), ex);
             }
         }
+        
+        INTEGRATIONS.clear();
+        INTEGRATION_CLASSES.clear();
     }
     
     public static boolean registerIntegration(Class<? extends Integration> integrationClass) {
@@ -91,6 +112,61 @@ public final class IntegrationManager {
         return true;
     }
     
+    /**
+     * Schedules the provided {@link Integration} to execute once all of its dependencies have completed, the returned
+     * future completes exceptionally if the integration or any of its dependencies failed.
+     */
+    private static CompletableFuture<Void> schedule(Integration integration, Map<Class<? extends Integration>, CompletableFuture<Void>> futures,
+                                                    Set<Class<? extends Integration>> visiting, Profiler parent, Executor executor) {
+        CompletableFuture<Void> future = futures.get(integration.getClass());
+        if (future != null) {
+            return future;
+        }
+        
+        if (!visiting.add(integration.getClass())) {
+            throw new IllegalStateException(String.format("Circular dependency on %s", Toolbox.getClassSimpleName(integration.getClass())));
+        }
+        
+        List<CompletableFuture<Void>> dependencies = new ArrayList<>();
+        for (Class<? extends Integration> dependencyClass : integration.getDependencies()) {
+            Integration dependency = getIntegration(dependencyClass);
+            if (dependency == null) {
+                Analysis.getInstance().getLogger().warn("{} depends on {} which is not registered",
+                        Toolbox.getClassSimpleName(integration.getClass()), Toolbox.getClassSimpleName(dependencyClass));
+                continue;
+            }
+            
+            dependencies.add(schedule(dependency, futures, visiting, parent, executor));
+        }
+        
+        visiting.remove(integration.getClass());
+        future = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture[0])).handleAsync((result, throwable) -> {
+            if (throwable != null) {
+                Analysis.getInstance().getLogger().warn("Skipping {} as a dependency failed", Toolbox.getClassSimpleName(integration.getClass()));
+                throw new CompletionException(throwable);
+            }
+            
+            if (!execute(integration, parent)) {
+                throw new IllegalStateException(String.format("%s failed", Toolbox.getClassSimpleName(integration.getClass())));
+            }
+            
+            return null;
+        }, executor);
+        futures.put(integration.getClass(), future);
+        return future;
+    }
+    
+    private static boolean execute(Integration integration, Profiler parent) {
+        try (Profiler profiler = Profiler.start(Toolbox.getClassSimpleName(integration.getClass()), parent)) {
+            integration.execute();
+            Analysis.getInstance().getLogger().info("{} executed in {}", Toolbox.getClassSimpleName(integration.getClass()), profiler);
+            return true;
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().error("Encountered an error while executing {}", Toolbox.getClassSimpleName(integration.getClass()), ex);
+            return false;
+        }
+    }
+    
     @SuppressWarnings("unchecked")
     public static <T extends Integration> T getIntegration(Class<T> integrationClass) {
         for (Integration integration : INTEGRATIONS) {
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.manager;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.metric.Counter;
+import io.github.lxgaming.analysis.common.metric.Gauge;
+import io.github.lxgaming.analysis.common.metric.Histogram;
+import io.github.lxgaming.analysis.common.metric.Metric;
+import io.github.lxgaming.analysis.common.util.Profiler;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process wide metrics which accumulate across every version analysed by this process.
+ */
+public final class MetricManager {
+    
+    private static final List<Metric<?>> METRICS = new ArrayList<>();
+    
+    public static final Gauge INFO = register(new Gauge("minecraftanalysis_info", "Version of MinecraftAnalysis", "version"));
+    public static final Counter ANALYSES = register(new Counter("minecraftanalysis_analyses_total", "Versions analysed by result", "result"));
+    public static final Gauge LAST_SUCCESS = register(new Gauge("minecraftanalysis_last_success_timestamp_seconds", "Time the last successful analysis finished"));
+    public static final Histogram PHASE_DURATION = register(new Histogram("minecraftanalysis_phase_duration_seconds", "Duration of each analysis phase", Histogram.DURATION_BUCKETS, "phase"));
+    public static final Counter DOWNLOADED_BYTES = register(new Counter("minecraftanalysis_downloaded_bytes_total", "Bytes transferred while downloading files"));
+    public static final Counter ARTIFACTS = register(new Counter("minecraftanalysis_artifacts_total", "Artifacts requested by result, verified and linked artifacts are served from the cache", "result"));
+    public static final Counter REMAPPED_CLASSES = register(new Counter("minecraftanalysis_remapped_classes_total", "Classes remapped by mapping", "mapping"));
+    public static final Counter UNKNOWN_MEMBERS = register(new Counter("minecraftanalysis_unknown_members_total", "Classes, fields and methods missing from a mapping, including every member of a class missing from it", "mapping", "kind"));
+    public static final Histogram QUERY_DURATION = register(new Histogram("minecraftanalysis_query_duration_seconds", "Duration of each query", Histogram.DURATION_BUCKETS, "query"));
+    
+    static {
+        INFO.labels(Analysis.VERSION).set(1);
+    }
+    
+    /**
+     * Observes the duration of the root span and each of its direct children, deeper spans are left to the trace.
+     */
+    public static void observePhases(List<Profiler> spans) {
+        for (Profiler span : spans) {
+            if (span.isDetail() || (span.getParent() != null && span.getParent().getParent() != null)) {
+                continue;
+            }
+            
+            PHASE_DURATION.labels(span.getName()).observe(toSeconds(span.getDuration()));
+        }
+    }
+    
+    public static String getExposition() {
+        StringBuilder builder = new StringBuilder();
+        for (Metric<?> metric : METRICS) {
+            metric.write(builder);
+        }
+        
+        return builder.toString();
+    }
+    
+    /**
+     * Writes every metric in the Prometheus text exposition format, the file is replaced atomically so that the node
+     * exporter textfile collector never reads a partial file.
+     *
+     * @param path The {@link java.nio.file.Path Path} to write to, the textfile collector requires a {@code .prom} extension.
+     */
+    public static void write(Path path) throws IOException {
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        
+        Files.write(temporaryPath, getExposition().getBytes(StandardCharsets.UTF_8));
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public static double toSeconds(long nanos) {
+        return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+    }
+    
+    private static <T extends Metric<?>> T register(T metric) {
+        METRICS.add(metric);
+        return metric;
+    }
+}
+
@@ -17,35 +17,275 @@
 package io.github.lxgaming.analysis.common.manager;
 
 import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.configuration.Config;
 import io.github.lxgaming.analysis.common.query.PropertiesQuery;
 import io.github.lxgaming.analysis.common.query.ProtocolQuery;
 import io.github.lxgaming.analysis.common.query.Query;
+import io.github.lxgaming.analysis.common.query.StaticQuery;
+import io.github.lxgaming.analysis.common.util.HashUtils;
+import io.github.lxgaming.analysis.common.util.Profiler;
+import io.github.lxgaming.analysis.common.util.QueryCache;
 import io.github.lxgaming.analysis.common.util.StringUtils;
 import io.github.lxgaming.analysis.common.util.Toolbox;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public final class QueryManager {
     
     private static final Set<Query> QUERIES = new LinkedHashSet<>();
     private static final Set<Class<? extends Query>> QUERY_CLASSES = new HashSet<>();
+    private static final Map<Query, String> FINGERPRINTS = new HashMap<>();
+    private static QueryCache queryCache;
     
     public static void prepare() {
         registerQuery(PropertiesQuery.class);
         registerQuery(ProtocolQuery.class);
     }
     
-    public static void execute() {
+    /**
+     * Loads the query cache and fingerprints every registered query against the provided hash of the deobfuscated jar.
+     *
+     * @param path The {@link java.nio.file.Path Path} of the query cache.
+     * @param hash The SHA-1 of the deobfuscated jar.
+     * @return {@code true} if every registered query has a cached result, otherwise {@code false}.
+     */
+    public static boolean prepareCache(Path path, String hash) {
+        queryCache = new QueryCache(path);
+        queryCache.load();
+        
         for (Query query : QUERIES) {
+            FINGERPRINTS.put(query, getFingerprint(query, hash));
+        }
+        
+        for (Query query : QUERIES) {
+            if (isApplicable(query) && !isCached(query)) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Executes thread-safe queries concurrently, followed by the remaining queries one at a time. Each query is
+     * interrupted once it exceeds the configured timeout and all failures are summarized once every query has finished.
+     *
+     * <p>Every query runs on its own thread and concurrency is limited by permits rather than a fixed pool. A query
+     * which ignores the interrupt keeps its thread, but its permit is handed on so it cannot hold up queued queries.</p>
+     */
+    public static void execute() {
+        int threads = Analysis.getInstance().getConfig().getThreads();
+        ExecutorService executorService = Executors.newCachedThreadPool(Toolbox.newThreadFactory("Query Thread #%d"));
+        Semaphore permits = new Semaphore(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        ScheduledExecutorService watchdogService = Executors.newSingleThreadScheduledExecutor(Toolbox.newThreadFactory("Query Watchdog #%d"));
+        Map<Query, Throwable> failures = new LinkedHashMap<>();
+        List<Query> queries = new ArrayList<>();
+        try {
+            for (Query query : QUERIES) {
+                if (!isApplicable(query)) {
+                    Analysis.getInstance().getLogger().warn("{} does not support static analysis", Toolbox.getClassSimpleName(query.getClass()));
+                    continue;
+                }
+                
+                if (isCached(query)) {
+                    Analysis.getInstance().getLogger().info("{} is cached", Toolbox.getClassSimpleName(query.getClass()));
+                    continue;
+                }
+                
+                queries.add(query);
+            }
+            
+            Profiler parent = Profiler.current();
+            Map<Query, Future<Set<Path>>> futures = new LinkedHashMap<>();
+            for (Query query : queries) {
+                if (query.isThreadSafe()) {
+                    futures.put(query, submit(query, parent, executorService, permits, watchdogService));
+                }
+            }
+            
+            for (Map.Entry<Query, Future<Set<Path>>> entry : futures.entrySet()) {
+                await(entry.getKey(), entry.getValue(), failures);
+            }
+            
+            for (Query query : queries) {
+                if (!query.isThreadSafe()) {
+                    await(query, submit(query, parent, executorService, permits, watchdogService), failures);
+                }
+            }
+        } finally {
+            watchdogService.shutdownNow();
+            executorService.shutdownNow();
+            
+            if (queryCache != null) {
+                queryCache.save();
+            }
+        }
+        
+        if (!failures.isEmpty()) {
+            Analysis.getInstance().getLogger().error("{} of {} queries failed:", failures.size(), queries.size());
+            for (Map.Entry<Query, Throwable> entry : failures.entrySet()) {
+                Analysis.getInstance().getLogger().error("- {}: {}", Toolbox.getClassSimpleName(entry.getKey().getClass()), entry.getValue().toString());
+            }
+        }
+    }
+    
+    public static void shutdown() {
+        QUERIES.clear();
+        QUERY_CLASSES.clear();
+        FINGERPRINTS.clear();
+        queryCache = null;
+    }
+    
+    private static Future<Set<Path>> submit(Query query, Profiler parent, ExecutorService executorService, Semaphore permits, ScheduledExecutorService watchdogService) {
+        FutureTask<Set<Path>> task = new FutureTask<>(() -> {
+            Set<Path> outputs = new LinkedHashSet<>();
+            Analysis.getInstance().setOutputs(outputs);
+            Profiler profiler = Profiler.start(Toolbox.getClassSimpleName(query.getClass()), parent);
+            try {
+                if (Analysis.getInstance().getConfig().isStatic()) {
+                    ((StaticQuery) query).executeStatic();
+                } else {
+                    query.execute();
+                }
+                
+                Analysis.getInstance().getLogger().info("{} executed in {}", Toolbox.getClassSimpleName(query.getClass()), profiler);
+            } finally {
+                // Failed and timed out queries are observed as well
+                profiler.close();
+                MetricManager.QUERY_DURATION.labels(profiler.getName()).observe(MetricManager.toSeconds(profiler.getDuration()));
+                Analysis.getInstance().setOutputs(null);
+            }
+            
+            return outputs;
+        });
+        
+        int timeout = Analysis.getInstance().getConfig().getQueryTimeout();
+        executorService.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException ex) {
+                task.cancel(false);
+                Thread.currentThread().interrupt();
+                return;
+            }
+            
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            };
+            
+            // The timeout starts once the query holds a permit rather than when it was queued
+            ScheduledFuture<?> watchdog = timeout > 0 ? watchdogService.schedule(() -> {
+                task.cancel(true);
+                release.run();
+            }, timeout, TimeUnit.SECONDS) : null;
             try {
-                query.execute();
-            } catch (Exception ex) {
-                Analysis.getInstance().getLogger().error("Encountered an error while executing {}", Toolbox.getClassSimpleName(query.getClass()), ex);
+                task.run();
+            } finally {
+                if (watchdog != null) {
+                    watchdog.cancel(false);
+                }
+                
+                release.run();
+            }
+        });
+        
+        return task;
+    }
+    
+    /**
+     * Waits for the provided query and records its outputs in the query cache, failed and timed out queries are removed
+     * from the cache instead. A timed out query which finishes late is never recorded as its result is discarded here.
+     */
+    private static void await(Query query, Future<Set<Path>> future, Map<Query, Throwable> failures) {
+        Throwable throwable;
+        try {
+            Set<Path> outputs = future.get();
+            String fingerprint = FINGERPRINTS.get(query);
+            if (queryCache != null && fingerprint != null) {
+                queryCache.record(query.getClass().getName(), fingerprint, outputs);
             }
+            
+            return;
+        } catch (CancellationException ex) {
+            throwable = new TimeoutException(String.format("Timed out after %s seconds", Analysis.getInstance().getConfig().getQueryTimeout()));
+        } catch (ExecutionException ex) {
+            throwable = ex.getCause() != null ? ex.getCause() : ex;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throwable = ex;
+        } catch (IOException ex) {
+            throwable = ex;
         }
+        
+        Analysis.getInstance().getLogger().error("Encountered an error while executing {}", Toolbox.getClassSimpleName(query.getClass()), throwable);
+        failures.put(query, throwable);
+        if (queryCache != null) {
+            queryCache.remove(query.getClass().getName());
+        }
+    }
+    
+    private static boolean isApplicable(Query query) {
+        return !Analysis.getInstance().getConfig().isStatic() || query instanceof StaticQuery;
+    }
+    
+    private static boolean isCached(Query query) {
+        if (queryCache == null || Analysis.getInstance().getConfig().isForceQueries()) {
+            return false;
+        }
+        
+        String fingerprint = FINGERPRINTS.get(query);
+        return fingerprint != null && queryCache.isCached(query.getClass().getName(), fingerprint);
+    }
+    
+    /**
+     * Fingerprints everything that affects the output of the provided {@link Query}.
+     */
+    private static String getFingerprint(Query query, String hash) {
+        Config config = Analysis.getInstance().getConfig();
+        String key = String.join("\n",
+                Analysis.getInstance().getManifest().getId(),
+                config.getPlatform().toString(),
+                hash,
+                query.getClass().getName(),
+                Integer.toString(query.getVersion()),
+                config.getOutputFormat().toString(),
+                config.getOutputCompression().toString(),
+                Boolean.toString(config.isCompact()),
+                Boolean.toString(config.isColumnar()),
+                Boolean.toString(config.isStatic())
+        );
+        
+        MessageDigest digest = HashUtils.sha1();
+        digest.update(key.getBytes(StandardCharsets.UTF_8));
+        return HashUtils.toString(digest);
     }
     
     public static boolean registerAlias(Query query, String alias) {
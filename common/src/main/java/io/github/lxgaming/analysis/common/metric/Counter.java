@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.metric;
+
+import java.util.List;
+import java.util.concurrent.atomic.DoubleAdder;
+
+/**
+ * A monotonically increasing total, the name should end with {@code _total}.
+ */
+public class Counter extends Metric<Counter.Child> {
+    
+    public Counter(String name, String help, String... labelNames) {
+        super(name, help, labelNames);
+    }
+    
+    public void inc() {
+        labels().inc();
+    }
+    
+    public void inc(double amount) {
+        labels().inc(amount);
+    }
+    
+    @Override
+    protected Child createChild() {
+        return new Child();
+    }
+    
+    @Override
+    protected String getType() {
+        return "counter";
+    }
+    
+    @Override
+    protected void writeChild(StringBuilder builder, List<String> labelValues, Child child) {
+        writeSample(builder, "", labelValues, null, null, child.get());
+    }
+    
+    public static class Child {
+        
+        private final DoubleAdder value = new DoubleAdder();
+        
+        public void inc() {
+            inc(1);
+        }
+        
+        public void inc(double amount) {
+            if (amount < 0) {
+                throw new IllegalArgumentException("Counters cannot decrease");
+            }
+            
+            value.add(amount);
+        }
+        
+        public double get() {
+            return value.sum();
+        }
+    }
+}
+
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.metric;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value which may be set to anything, such as a timestamp or the size of the most recent output.
+ */
+public class Gauge extends Metric<Gauge.Child> {
+    
+    public Gauge(String name, String help, String... labelNames) {
+        super(name, help, labelNames);
+    }
+    
+    public void set(double value) {
+        labels().set(value);
+    }
+    
+    public void setToCurrentTime() {
+        labels().setToCurrentTime();
+    }
+    
+    @Override
+    protected Child createChild() {
+        return new Child();
+    }
+    
+    @Override
+    protected String getType() {
+        return "gauge";
+    }
+    
+    @Override
+    protected void writeChild(StringBuilder builder, List<String> labelValues, Child child) {
+        writeSample(builder, "", labelValues, null, null, child.get());
+    }
+    
+    public static class Child {
+        
+        // Stores the raw bits of the double
+        private final AtomicLong value = new AtomicLong(Double.doubleToRawLongBits(0D));
+        
+        public void set(double value) {
+            this.value.set(Double.doubleToRawLongBits(value));
+        }
+        
+        public void setToCurrentTime() {
+            set(System.currentTimeMillis() / 1000D);
+        }
+        
+        public double get() {
+            return Double.longBitsToDouble(value.get());
+        }
+    }
+}
+
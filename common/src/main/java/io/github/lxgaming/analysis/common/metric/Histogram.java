@@ -0,0 +1,94 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.metric;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts observations into cumulative buckets, the implicit {@code +Inf} bucket always matches the total count.
+ */
+public class Histogram extends Metric<Histogram.Child> {
+    
+    public static final double[] DURATION_BUCKETS = {0.005D, 0.01D, 0.025D, 0.05D, 0.1D, 0.25D, 0.5D, 1D, 2.5D, 5D, 10D, 30D, 60D, 120D, 300D, 600D};
+    
+    private final double[] buckets;
+    
+    public Histogram(String name, String help, double[] buckets, String... labelNames) {
+        super(name, help, labelNames);
+        this.buckets = buckets.clone();
+        Arrays.sort(this.buckets);
+    }
+    
+    public void observe(double value) {
+        labels().observe(value);
+    }
+    
+    @Override
+    protected Child createChild() {
+        return new Child(buckets);
+    }
+    
+    @Override
+    protected String getType() {
+        return "histogram";
+    }
+    
+    @Override
+    protected void writeChild(StringBuilder builder, List<String> labelValues, Child child) {
+        long count = 0;
+        for (int index = 0; index < buckets.length; index++) {
+            count += child.counts[index].sum();
+            writeSample(builder, "_bucket", labelValues, "le", format(buckets[index]), count);
+        }
+        
+        count += child.counts[buckets.length].sum();
+        writeSample(builder, "_bucket", labelValues, "le", "+Inf", count);
+        writeSample(builder, "_sum", labelValues, null, null, child.sum.sum());
+        writeSample(builder, "_count", labelValues, null, null, count);
+    }
+    
+    public static class Child {
+        
+        private final double[] buckets;
+        private final LongAdder[] counts;
+        private final DoubleAdder sum;
+        
+        private Child(double[] buckets) {
+            this.buckets = buckets;
+            this.counts = new LongAdder[buckets.length + 1];
+            for (int index = 0; index < counts.length; index++) {
+                counts[index] = new LongAdder();
+            }
+            
+            this.sum = new DoubleAdder();
+        }
+        
+        public void observe(double value) {
+            int index = 0;
+            while (index < buckets.length && value > buckets[index]) {
+                index++;
+            }
+            
+            counts[index].increment();
+            sum.add(value);
+        }
+    }
+}
+
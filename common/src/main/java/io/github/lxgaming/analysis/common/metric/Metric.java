@@ -0,0 +1,158 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.metric;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A named family of samples which are written in the Prometheus text exposition format, each distinct set of label
+ * values is tracked by its own child.
+ *
+ * @param <T> The type of child.
+ */
+public abstract class Metric<T> {
+    
+    private final String name;
+    private final String help;
+    private final List<String> labelNames;
+    private final Map<List<String>, T> children;
+    
+    protected Metric(String name, String help, String... labelNames) {
+        this.name = name;
+        this.help = help;
+        this.labelNames = Collections.unmodifiableList(Arrays.asList(labelNames));
+        this.children = new ConcurrentHashMap<>();
+    }
+    
+    /**
+     * Returns the child for the provided label values, creating it on first use.
+     *
+     * @param labelValues The label values in the order the label names were declared.
+     * @return The child.
+     * @throws IllegalArgumentException If the number of label values does not match the label names.
+     */
+    public T labels(String... labelValues) {
+        if (labelValues.length != labelNames.size()) {
+            throw new IllegalArgumentException(String.format("Expected %s label values for %s, got %s", labelNames.size(), name, labelValues.length));
+        }
+        
+        return children.computeIfAbsent(Collections.unmodifiableList(Arrays.asList(labelValues)), key -> createChild());
+    }
+    
+    public void clear() {
+        children.clear();
+    }
+    
+    public void write(StringBuilder builder) {
+        // Metrics without labels always expose a sample, even before they are first used
+        if (labelNames.isEmpty()) {
+            labels();
+        }
+        
+        builder.append("# HELP ").append(name).append(' ').append(escape(help, false)).append('\n');
+        builder.append("# TYPE ").append(name).append(' ').append(getType()).append('\n');
+        
+        List<Map.Entry<List<String>, T>> entries = new ArrayList<>(children.entrySet());
+        entries.sort((entry1, entry2) -> String.join("\u0000", entry1.getKey()).compareTo(String.join("\u0000", entry2.getKey())));
+        for (Map.Entry<List<String>, T> entry : entries) {
+            writeChild(builder, entry.getKey(), entry.getValue());
+        }
+    }
+    
+    protected abstract T createChild();
+    
+    protected abstract String getType();
+    
+    protected abstract void writeChild(StringBuilder builder, List<String> labelValues, T child);
+    
+    protected void writeSample(StringBuilder builder, String suffix, List<String> labelValues, String extraLabelName, String extraLabelValue, double value) {
+        builder.append(name).append(suffix);
+        if (!labelNames.isEmpty() || extraLabelName != null) {
+            builder.append('{');
+            for (int index = 0; index < labelNames.size(); index++) {
+                if (index != 0) {
+                    builder.append(',');
+                }
+                
+                builder.append(labelNames.get(index)).append("=\"").append(escape(labelValues.get(index), true)).append('"');
+            }
+            
+            if (extraLabelName != null) {
+                if (!labelNames.isEmpty()) {
+                    builder.append(',');
+                }
+                
+                builder.append(extraLabelName).append("=\"").append(escape(extraLabelValue, true)).append('"');
+            }
+            
+            builder.append('}');
+        }
+        
+        builder.append(' ').append(format(value)).append('\n');
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public String getHelp() {
+        return help;
+    }
+    
+    public List<String> getLabelNames() {
+        return labelNames;
+    }
+    
+    public static String format(double value) {
+        if (Double.isNaN(value)) {
+            return "NaN";
+        }
+        
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "+Inf" : "-Inf";
+        }
+        
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return Long.toString((long) value);
+        }
+        
+        return Double.toString(value);
+    }
+    
+    private static String escape(String string, boolean quote) {
+        StringBuilder builder = new StringBuilder(string.length());
+        for (char character : string.toCharArray()) {
+            if (character == '\\') {
+                builder.append("\\\\");
+            } else if (character == '\n') {
+                builder.append("\\n");
+            } else if (character == '"' && quote) {
+                builder.append("\\\"");
+            } else {
+                builder.append(character);
+            }
+        }
+        
+        return builder.toString();
+    }
+}
+
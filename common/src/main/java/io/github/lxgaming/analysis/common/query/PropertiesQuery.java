@@ -32,6 +32,7 @@ public class PropertiesQuery extends Query {
     @Override
     public boolean prepare() {
         addAlias("properties");
+        setThreadSafe(true);
         return true;
     }
     
@@ -55,33 +56,38 @@ public class PropertiesQuery extends Query {
             throw new UnsupportedOperationException(String.format("Unsupported Constructor for %s", dedicatedServerPropertiesClass.getName()));
         }
         
-        JsonObject settings = new JsonObject();
-        for (Map.Entry<Object, Object> entry : properties.entrySet()) {
-            String key = (String) entry.getKey();
-            Object value = entry.getValue();
-            
-            JsonObject setting = new JsonObject();
-            setting.addProperty("prop", key);
-            
-            if (value == null) {
-                setting.add("value", JsonNull.INSTANCE);
-            } else if (value instanceof JsonElement) {
-                setting.add("value", (JsonElement) value);
-            } else if (value instanceof String) {
-                setting.addProperty("value", (String) value);
-            } else if (value instanceof Number) {
-                setting.addProperty("value", (Number) value);
-            } else if (value instanceof Boolean) {
-                setting.addProperty("value", (Boolean) value);
-            } else if (value instanceof Character) {
-                setting.addProperty("value", (Character) value);
-            } else {
-                Analysis.getInstance().getLogger().warn("{} is not supported ({})", value.getClass().getName(), key);
+        boolean written = Analysis.getInstance().write("properties", sink -> {
+            for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+                String key = (String) entry.getKey();
+                sink.writeRecord(key.replace(".", "_").replace("-", "_").toUpperCase(), createSetting(key, entry.getValue()));
             }
-            
-            settings.add(key.replace(".", "_").replace("-", "_").toUpperCase(), setting);
+        });
+        
+        if (!written) {
+            throw new IllegalStateException("Failed to write properties");
+        }
+    }
+    
+    private JsonObject createSetting(String key, Object value) {
+        JsonObject setting = new JsonObject();
+        setting.addProperty("prop", key);
+        
+        if (value == null) {
+            setting.add("value", JsonNull.INSTANCE);
+        } else if (value instanceof JsonElement) {
+            setting.add("value", (JsonElement) value);
+        } else if (value instanceof String) {
+            setting.addProperty("value", (String) value);
+        } else if (value instanceof Number) {
+            setting.addProperty("value", (Number) value);
+        } else if (value instanceof Boolean) {
+            setting.addProperty("value", (Boolean) value);
+        } else if (value instanceof Character) {
+            setting.addProperty("value", (Character) value);
+        } else {
+            Analysis.getInstance().getLogger().warn("{} is not supported ({})", value.getClass().getName(), key);
         }
         
-        Analysis.getInstance().write("properties", settings);
+        return setting;
     }
 }
\ No newline at end of file
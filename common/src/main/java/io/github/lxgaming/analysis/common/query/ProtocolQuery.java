@@ -16,37 +16,89 @@
 
 package io.github.lxgaming.analysis.common.query;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.entity.ColumnType;
+import io.github.lxgaming.analysis.common.util.ColumnarWriter;
+import io.github.lxgaming.analysis.common.util.OutputSink;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TypeInsnNode;
 
+import java.io.IOException;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class ProtocolQuery extends Query {
+public class ProtocolQuery extends Query implements StaticQuery {
+    
+    private static final String CONNECTION_PROTOCOL = "net/minecraft/network/ConnectionProtocol";
+    private static final String PACKET_FLOW = "net/minecraft/network/protocol/PacketFlow";
+    private static final String[] STATES = {"HANDSHAKING", "STATUS", "LOGIN", "PLAY"};
     
     @Override
     public boolean prepare() {
         addAlias("protocol");
+        setThreadSafe(true);
         return true;
     }
     
     @Override
     public void execute() throws Exception {
-        JsonArray jsonArray;
-        if (Analysis.getInstance().getManifest().getId().equals("1.14.4")) {
-            jsonArray = processPackets();
-        } else {
-            jsonArray = processFlows();
-        }
+        ColumnarWriter columnarWriter = createColumnarWriter();
+        boolean written = Analysis.getInstance().write("protocol", sink -> {
+            if (Analysis.getInstance().getManifest().getId().equals("1.14.4")) {
+                processPackets(sink, columnarWriter);
+            } else {
+                processFlows(sink, columnarWriter);
+            }
+        });
         
-        Analysis.getInstance().write("protocol", jsonArray);
+        writeColumnar(written, columnarWriter);
+    }
+    
+    @Override
+    public void executeStatic() throws Exception {
+        List<String> flows = getEnumConstants(readClass(Type.getObjectType(PACKET_FLOW).getClassName()));
+        StateReader stateReader = new StateReader(this::readClass);
+        stateReader.read(readClass(Type.getObjectType(CONNECTION_PROTOCOL).getClassName()));
+        Map<String, Map<String, List<String>>> states = stateReader.getStates();
+        
+        ColumnarWriter columnarWriter = createColumnarWriter();
+        boolean written = Analysis.getInstance().write("protocol", sink -> {
+            for (String state : STATES) {
+                Map<String, List<String>> packets = states.get(state);
+                if (packets == null) {
+                    throw new IllegalStateException(String.format("Failed to resolve packets for %s", state));
+                }
+                
+                for (String flow : flows) {
+                    List<String> packetNames = packets.getOrDefault(flow, Collections.emptyList());
+                    for (int id = 0; id < packetNames.size(); id++) {
+                        writePacket(sink, columnarWriter, id, packetNames.get(id), flow, state);
+                    }
+                }
+            }
+        });
+        
+        writeColumnar(written, columnarWriter);
     }
     
     // 1.15+
     @SuppressWarnings("unchecked")
-    private JsonArray processFlows() throws Exception {
+    private void processFlows(OutputSink sink, ColumnarWriter columnarWriter) throws Exception {
         Class<?> connectionProtocolClass = loadClass("net.minecraft.network.ConnectionProtocol");
         
         // net.minecraft.network.ConnectionProtocol.HANDSHAKING
@@ -76,30 +128,24 @@ public class ProtocolQuery extends Query {
         Object loginProtocol = loginField.get(null);
         Object playProtocol = playField.get(null);
         
-        JsonArray jsonArray = new JsonArray();
         for (Object connectionProtocol : new Object[]{handshakeProtocol, statusProtocol, loginProtocol, playProtocol}) {
             
             Map<Object, Object> flows = (Map<Object, Object>) flowsField.get(connectionProtocol);
             for (Map.Entry<Object, Object> flowEntry : flows.entrySet()) {
                 
                 Map<Class<?>, Integer> classToId = (Map<Class<?>, Integer>) classToIdField.get(flowEntry.getValue());
-                classToId.entrySet().stream().sorted(Comparator.comparingInt(Map.Entry::getValue)).forEach(entry -> {
-                    JsonObject jsonObject = new JsonObject();
-                    jsonObject.addProperty("id", entry.getValue());
-                    jsonObject.addProperty("name", entry.getKey().getName());
-                    jsonObject.addProperty("direction", flowEntry.getKey().toString());
-                    jsonObject.addProperty("state", connectionProtocol.toString());
-                    jsonArray.add(jsonObject);
-                });
+                List<Map.Entry<Class<?>, Integer>> entries = new ArrayList<>(classToId.entrySet());
+                entries.sort(Comparator.comparingInt(Map.Entry::getValue));
+                for (Map.Entry<Class<?>, Integer> entry : entries) {
+                    writePacket(sink, columnarWriter, entry.getValue(), entry.getKey().getName(), flowEntry.getKey().toString(), connectionProtocol.toString());
+                }
             }
         }
-        
-        return jsonArray;
     }
     
     // 1.14.4
     @SuppressWarnings("unchecked")
-    private JsonArray processPackets() throws Exception {
+    private void processPackets(OutputSink sink, ColumnarWriter columnarWriter) throws Exception {
         Class<?> connectionProtocolClass = loadClass("net.minecraft.network.ConnectionProtocol");
         
         // net.minecraft.network.ConnectionProtocol.HANDSHAKING
@@ -123,23 +169,156 @@ public class ProtocolQuery extends Query {
         Object loginProtocol = loginField.get(null);
         Object playProtocol = playField.get(null);
         
-        JsonArray jsonArray = new JsonArray();
         for (Object connectionProtocol : new Object[]{handshakeProtocol, statusProtocol, loginProtocol, playProtocol}) {
             
             Map<Object, Map<Integer, Class<?>>> packets = (Map<Object, Map<Integer, Class<?>>>) packetsField.get(connectionProtocol);
             for (Map.Entry<Object, Map<Integer, Class<?>>> packetEntry : packets.entrySet()) {
                 
                 for (Map.Entry<Integer, Class<?>> entry : packetEntry.getValue().entrySet()) {
-                    JsonObject jsonObject = new JsonObject();
-                    jsonObject.addProperty("id", entry.getKey());
-                    jsonObject.addProperty("name", entry.getValue().getName());
-                    jsonObject.addProperty("direction", packetEntry.getKey().toString());
-                    jsonObject.addProperty("state", connectionProtocol.toString());
-                    jsonArray.add(jsonObject);
+                    writePacket(sink, columnarWriter, entry.getKey(), entry.getValue().getName(), packetEntry.getKey().toString(), connectionProtocol.toString());
                 }
             }
         }
+    }
+    
+    private ColumnarWriter createColumnarWriter() {
+        if (!Analysis.getInstance().getConfig().isColumnar()) {
+            return null;
+        }
+        
+        return new ColumnarWriter()
+                .addColumn("id", ColumnType.INT)
+                .addColumn("name", ColumnType.STRING)
+                .addColumn("direction", ColumnType.STRING)
+                .addColumn("state", ColumnType.STRING);
+    }
+    
+    /**
+     * Fails the query if either output could not be written, the columnar table is only complete if the JSON was.
+     */
+    private void writeColumnar(boolean written, ColumnarWriter columnarWriter) {
+        if (!written) {
+            throw new IllegalStateException("Failed to write protocol");
+        }
+        
+        if (columnarWriter != null && !Analysis.getInstance().writeColumnar("protocol", columnarWriter)) {
+            throw new IllegalStateException("Failed to write protocol columnar table");
+        }
+    }
+    
+    private void writePacket(OutputSink sink, ColumnarWriter columnarWriter, int id, String name, String direction, String state) throws IOException {
+        JsonWriter jsonWriter = sink.beginRecord();
+        jsonWriter.beginObject();
+        jsonWriter.name("id").value(id);
+        jsonWriter.name("name").value(name);
+        jsonWriter.name("direction").value(direction);
+        jsonWriter.name("state").value(state);
+        jsonWriter.endObject();
+        sink.endRecord();
+        
+        if (columnarWriter != null) {
+            columnarWriter.addRow(id, name, direction, state);
+        }
+    }
+    
+    static List<String> getEnumConstants(ClassNode classNode) {
+        List<String> constants = new ArrayList<>();
+        for (FieldNode fieldNode : classNode.fields) {
+            if ((fieldNode.access & Opcodes.ACC_ENUM) != 0) {
+                constants.add(fieldNode.name);
+            }
+        }
+        
+        return constants;
+    }
+    
+    private static MethodNode getMethod(ClassNode classNode, String name) throws NoSuchMethodException {
+        for (MethodNode methodNode : classNode.methods) {
+            if (methodNode.name.equals(name)) {
+                return methodNode;
+            }
+        }
+        
+        throw new NoSuchMethodException(String.format("%s.%s", Type.getObjectType(classNode.name).getClassName(), name));
+    }
+    
+    /**
+     * Symbolically evaluates the static initializer of {@code ConnectionProtocol}. Packet ids are assigned in
+     * registration order per flow, so it is sufficient to track the last {@code PacketFlow} constant and packet class
+     * literal preceding each {@code addPacket} call and to attribute the collected packets to the constant assigned by
+     * the next {@code PUTSTATIC}. 1.14.4 registers packets in the initializers of anonymous enum constant bodies, which
+     * are followed as they are instantiated.
+     */
+    static class StateReader {
+        
+        private final ClassSource classSource;
+        private final Map<String, Map<String, List<String>>> states = new HashMap<>();
+        private Map<String, List<String>> packets = new LinkedHashMap<>();
+        private String flow;
+        private String packet;
+        
+        StateReader(ClassSource classSource) {
+            this.classSource = classSource;
+        }
+        
+        void read(ClassNode classNode) throws Exception {
+            for (AbstractInsnNode insnNode : getMethod(classNode, "<clinit>").instructions) {
+                if (insnNode.getOpcode() == Opcodes.NEW) {
+                    String type = ((TypeInsnNode) insnNode).desc;
+                    if (!type.startsWith(CONNECTION_PROTOCOL + "$")) {
+                        continue;
+                    }
+                    
+                    ClassNode innerClassNode = classSource.readClass(Type.getObjectType(type).getClassName());
+                    if (innerClassNode.superName.equals(CONNECTION_PROTOCOL)) {
+                        for (AbstractInsnNode innerInsnNode : getMethod(innerClassNode, "<init>").instructions) {
+                            readPacket(innerInsnNode);
+                        }
+                    }
+                } else if (insnNode.getOpcode() == Opcodes.PUTSTATIC) {
+                    FieldInsnNode fieldInsnNode = (FieldInsnNode) insnNode;
+                    if (fieldInsnNode.owner.equals(CONNECTION_PROTOCOL) && fieldInsnNode.desc.equals("L" + CONNECTION_PROTOCOL + ";")) {
+                        states.put(fieldInsnNode.name, packets);
+                        packets = new LinkedHashMap<>();
+                    }
+                } else {
+                    readPacket(insnNode);
+                }
+            }
+        }
+        
+        private void readPacket(AbstractInsnNode insnNode) {
+            if (insnNode.getOpcode() == Opcodes.GETSTATIC) {
+                FieldInsnNode fieldInsnNode = (FieldInsnNode) insnNode;
+                if (fieldInsnNode.owner.equals(PACKET_FLOW)) {
+                    flow = fieldInsnNode.name;
+                }
+            } else if (insnNode.getOpcode() == Opcodes.LDC) {
+                Object value = ((LdcInsnNode) insnNode).cst;
+                if (value instanceof Type && ((Type) value).getSort() == Type.OBJECT) {
+                    packet = ((Type) value).getClassName();
+                }
+            } else if (insnNode instanceof MethodInsnNode && ((MethodInsnNode) insnNode).name.equals("addPacket")) {
+                if (flow == null || packet == null) {
+                    throw new IllegalStateException("Unresolved addPacket invocation");
+                }
+                
+                packets.computeIfAbsent(flow, key -> new ArrayList<>()).add(packet);
+                packet = null;
+            }
+        }
+        
+        /**
+         * @return the packet class names registered by each flow, keyed by state
+         */
+        Map<String, Map<String, List<String>>> getStates() {
+            return states;
+        }
+    }
+    
+    @FunctionalInterface
+    interface ClassSource {
         
-        return jsonArray;
+        ClassNode readClass(String name) throws Exception;
     }
 }
\ No newline at end of file
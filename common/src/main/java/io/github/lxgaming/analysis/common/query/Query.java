@@ -18,13 +18,19 @@ package io.github.lxgaming.analysis.common.query;
 
 import io.github.lxgaming.analysis.common.Analysis;
 import io.github.lxgaming.analysis.common.manager.QueryManager;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.LinkedHashSet;
 import java.util.Set;
 
 public abstract class Query {
     
     private final Set<String> aliases = new LinkedHashSet<>();
+    private boolean threadSafe;
+    private int version = 1;
     
     public abstract boolean prepare();
     
@@ -34,11 +40,46 @@ public abstract class Query {
         return Analysis.getInstance().getClassLoader().loadClass(name);
     }
     
+    protected final ClassNode readClass(String name) throws ClassNotFoundException, IOException {
+        try (InputStream inputStream = Analysis.getInstance().getClassLoader().getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (inputStream == null) {
+                throw new ClassNotFoundException(name);
+            }
+            
+            ClassNode classNode = new ClassNode();
+            new ClassReader(inputStream).accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+            return classNode;
+        }
+    }
+    
     protected final void addAlias(String alias) {
         QueryManager.registerAlias(this, alias);
     }
     
+    /**
+     * Marks this query as safe to execute concurrently with other thread-safe queries.
+     */
+    protected final void setThreadSafe(boolean threadSafe) {
+        this.threadSafe = threadSafe;
+    }
+    
+    /**
+     * Sets the implementation version of this query, which must be incremented whenever its output changes so that
+     * cached results are invalidated.
+     */
+    protected final void setVersion(int version) {
+        this.version = version;
+    }
+    
     public final Set<String> getAliases() {
         return aliases;
     }
+    
+    public final boolean isThreadSafe() {
+        return threadSafe;
+    }
+    
+    public final int getVersion() {
+        return version;
+    }
 }
\ No newline at end of file
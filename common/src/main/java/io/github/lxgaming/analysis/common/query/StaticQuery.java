@@ -0,0 +1,30 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.query;
+
+/**
+ * Implemented by a {@link Query} which supports static analysis, queries without it are skipped when
+ * {@code --static} is set.
+ */
+public interface StaticQuery {
+    
+    /**
+     * Executes this query against the bytecode of the deobfuscated jar without loading or initializing any classes.
+     */
+    void executeStatic() throws Exception;
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.entity.LedgerEntry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the SHA-1 of files that have already been verified alongside their size, modification time and file key,
+ * allowing subsequent verification to be performed against file metadata rather than by re-hashing the contents.
+ */
+public class ArtifactLedger {
+    
+    private final Map<String, LedgerEntry> entries = new ConcurrentHashMap<>();
+    private final Set<String> verified = ConcurrentHashMap.newKeySet();
+    private final Path path;
+    private volatile boolean modified;
+    
+    public ArtifactLedger(Path path) {
+        this.path = path;
+    }
+    
+    public void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            LedgerEntry[] ledgerEntries = Toolbox.GSON.fromJson(reader, LedgerEntry[].class);
+            if (ledgerEntries == null) {
+                return;
+            }
+            
+            for (LedgerEntry entry : ledgerEntries) {
+                entries.put(entry.getPath(), entry);
+            }
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().warn("Encountered an error while reading {}", path.getFileName(), ex);
+        }
+    }
+    
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                Toolbox.GSON.toJson(new TreeMap<>(entries).values(), writer);
+            }
+            
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            this.modified = false;
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().warn("Encountered an error while writing {}", path.getFileName(), ex);
+        }
+    }
+    
+    /**
+     * Verifies the file at the provided {@link java.nio.file.Path Path} matches the provided SHA-1, the contents are
+     * only hashed if the file has changed since it was last verified or if {@code reverify} is set.
+     *
+     * @param path The {@link java.nio.file.Path Path} to verify.
+     * @param hash The expected SHA-1.
+     * @param reverify Whether to ignore metadata recorded by previous runs.
+     * @return {@code true} if the file matches, otherwise {@code false}.
+     * @throws IOException If an I/O error occurs.
+     */
+    public boolean verify(Path path, String hash, boolean reverify) throws IOException {
+        if (isVerified(path, hash, reverify)) {
+            return true;
+        }
+        
+        if (Files.exists(path) && HashUtils.sha1(path, hash)) {
+            record(path, hash);
+            return true;
+        }
+        
+        remove(getKey(path));
+        return false;
+    }
+    
+    /**
+     * Checks the recorded metadata for the file at the provided {@link java.nio.file.Path Path} without hashing it.
+     *
+     * @param path The {@link java.nio.file.Path Path} to check.
+     * @param hash The expected SHA-1.
+     * @param reverify Whether to ignore metadata recorded by previous runs.
+     * @return {@code true} if the file is unchanged since it was verified, otherwise {@code false}.
+     * @throws IOException If an I/O error occurs.
+     */
+    public boolean isVerified(Path path, String hash, boolean reverify) throws IOException {
+        String key = getKey(path);
+        LedgerEntry entry = entries.get(key);
+        if (entry == null || !entry.getHash().equalsIgnoreCase(hash) || (reverify && !verified.contains(key))) {
+            return false;
+        }
+        
+        try {
+            return entry.matches(Files.readAttributes(path, BasicFileAttributes.class));
+        } catch (NoSuchFileException ex) {
+            remove(key);
+            return false;
+        }
+    }
+    
+    /**
+     * Returns the SHA-1 of the file at the provided {@link java.nio.file.Path Path}, the contents are only hashed if the
+     * file has changed since it was last recorded.
+     *
+     * @param path The {@link java.nio.file.Path Path} to hash.
+     * @return The SHA-1 of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public String hash(Path path) throws IOException {
+        LedgerEntry entry = entries.get(getKey(path));
+        if (entry != null && entry.matches(Files.readAttributes(path, BasicFileAttributes.class))) {
+            return entry.getHash();
+        }
+        
+        String hash = HashUtils.sha1(path);
+        record(path, hash);
+        return hash;
+    }
+    
+    public void record(Path path, String hash) throws IOException {
+        String key = getKey(path);
+        entries.put(key, new LedgerEntry(key, Files.readAttributes(path, BasicFileAttributes.class), hash));
+        verified.add(key);
+        this.modified = true;
+    }
+    
+    private void remove(String key) {
+        verified.remove(key);
+        if (entries.remove(key) != null) {
+            this.modified = true;
+        }
+    }
+    
+    private String getKey(Path path) {
+        Path absolutePath = path.toAbsolutePath().normalize();
+        Path root = this.path.toAbsolutePath().normalize().getParent();
+        if (root != null && absolutePath.startsWith(root)) {
+            absolutePath = root.relativize(absolutePath);
+        }
+        
+        return absolutePath.toString().replace('\\', '/');
+    }
+}
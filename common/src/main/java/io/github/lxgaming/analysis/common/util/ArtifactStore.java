@@ -0,0 +1,71 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Content-addressable storage keyed by SHA-1, files referenced from elsewhere are hard linked into the store where
+ * supported and copied otherwise.
+ */
+public class ArtifactStore {
+    
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+    private final Path path;
+    
+    public ArtifactStore(Path path) {
+        this.path = path;
+    }
+    
+    public Path getPath(String hash) {
+        String key = hash.toLowerCase();
+        return path.resolve(key.substring(0, 2)).resolve(key);
+    }
+    
+    public Object getLock(String hash) {
+        return locks.computeIfAbsent(hash.toLowerCase(), key -> new Object());
+    }
+    
+    public void link(Path source, Path target) throws IOException {
+        if (Files.exists(target) && Files.isSameFile(source, target)) {
+            return;
+        }
+        
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        
+        Path temporaryPath = target.resolveSibling(target.getFileName() + ".tmp");
+        Files.deleteIfExists(temporaryPath);
+        
+        try {
+            Files.createLink(temporaryPath, source);
+        } catch (IOException | UnsupportedOperationException ex) {
+            Analysis.getInstance().getLogger().debug("Failed to link {}, falling back to copy: {}", target.getFileName(), ex.getMessage());
+            Files.copy(source, temporaryPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        Files.move(temporaryPath, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.entity.ColumnType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only, memory-mapped view of a table written by {@link ColumnarWriter}.
+ *
+ * <p>Values are read directly from the mapped file, string columns can be filtered without decoding by resolving the
+ * wanted value once with {@link #indexOf(String)} and comparing {@link #getStringIndex(int, int)}.</p>
+ */
+public class ColumnarReader {
+    
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int columnCount;
+    private final int stringCount;
+    private final int columnsPosition;
+    private final int stringOffsetsPosition;
+    private final int dataPosition;
+    private final int stringDataPosition;
+    
+    private ColumnarReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < ColumnarWriter.HEADER_SIZE || buffer.getInt(0) != ColumnarWriter.MAGIC || buffer.getInt(4) != ColumnarWriter.VERSION) {
+            throw new IllegalStateException("Unsupported Columnar Table");
+        }
+        
+        this.rowCount = buffer.getInt(8);
+        this.columnCount = buffer.getInt(12);
+        this.stringCount = buffer.getInt(16);
+        int stringDataLength = buffer.getInt(20);
+        
+        this.columnsPosition = ColumnarWriter.HEADER_SIZE;
+        this.stringOffsetsPosition = columnsPosition + columnCount * ColumnarWriter.COLUMN_SIZE;
+        this.dataPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+        this.stringDataPosition = dataPosition + columnCount * rowCount * 4;
+        if (stringDataPosition + stringDataLength != buffer.limit()) {
+            throw new IllegalStateException("Truncated Columnar Table");
+        }
+    }
+    
+    public static ColumnarReader open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new ColumnarReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    public int getColumnCount() {
+        return columnCount;
+    }
+    
+    public String getColumnName(int column) {
+        return getDictionaryString(buffer.getInt(columnsPosition + checkColumn(column) * ColumnarWriter.COLUMN_SIZE));
+    }
+    
+    public ColumnType getColumnType(int column) {
+        return ColumnType.values()[buffer.getInt(columnsPosition + checkColumn(column) * ColumnarWriter.COLUMN_SIZE + 4)];
+    }
+    
+    /**
+     * @return the index of the column with the provided name, or {@code -1} if there is no such column
+     */
+    public int getColumnIndex(String name) {
+        for (int column = 0; column < columnCount; column++) {
+            if (getColumnName(column).equals(name)) {
+                return column;
+            }
+        }
+        
+        return -1;
+    }
+    
+    public int getInt(int row, int column) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException(String.format("Row %s out of bounds for %s rows", row, rowCount));
+        }
+        
+        return buffer.getInt(dataPosition + (checkColumn(column) * rowCount + row) * 4);
+    }
+    
+    /**
+     * @return the dictionary index stored in a string column, or {@code -1} for {@code null}
+     */
+    public int getStringIndex(int row, int column) {
+        if (getColumnType(column) != ColumnType.STRING) {
+            throw new IllegalArgumentException(String.format("Column %s is not a string column", getColumnName(column)));
+        }
+        
+        return getInt(row, column);
+    }
+    
+    public String getString(int row, int column) {
+        return getDictionaryString(getStringIndex(row, column));
+    }
+    
+    public int getDictionarySize() {
+        return stringCount;
+    }
+    
+    public String getDictionaryString(int index) {
+        if (index == -1) {
+            return null;
+        }
+        
+        if (index < 0 || index >= stringCount) {
+            throw new IndexOutOfBoundsException(String.format("String %s out of bounds for %s strings", index, stringCount));
+        }
+        
+        return StringTable.read(buffer, stringOffsetsPosition, stringDataPosition, index);
+    }
+    
+    /**
+     * @return the dictionary index of the provided string, or {@code -1} if it does not occur in the table
+     */
+    public int indexOf(String string) {
+        byte[] key = string.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = stringCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = StringTable.compare(buffer, stringOffsetsPosition, stringDataPosition, middle, key);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        
+        return -1;
+    }
+    
+    private int checkColumn(int column) {
+        if (column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException(String.format("Column %s out of bounds for %s columns", column, columnCount));
+        }
+        
+        return column;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.entity.ColumnType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Collects homogeneous records and writes them as a columnar table readable by {@link ColumnarReader}.
+ *
+ * <p>The file consists of a header, the column definitions, a string offset table, one fixed-width {@code int32}
+ * column per definition and the UTF-8 string data. Strings, including column names, are dictionary encoded into a
+ * single pool sorted by their UTF-8 bytes, string columns store the pool index or {@code -1} for {@code null}.</p>
+ *
+ * <p>Rows are not streamed: every cell is held in memory as an {@code int32}, alongside the deduplicated string pool,
+ * until {@link #write(Path)}. Sorting the pool rewrites the value of every string cell, so no column can be written
+ * before the last row is known. This costs 4 bytes per cell, which is small next to the JSON output it accompanies.</p>
+ */
+public class ColumnarWriter {
+    
+    static final int MAGIC = 0x4D41434F;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int COLUMN_SIZE = 8;
+    
+    private final StringTable strings = new StringTable();
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<ColumnType> columnTypes = new ArrayList<>();
+    private final List<Column> columns = new ArrayList<>();
+    private int rowCount;
+    
+    public ColumnarWriter addColumn(String name, ColumnType type) {
+        if (rowCount != 0) {
+            throw new IllegalStateException("Cannot add column after rows");
+        }
+        
+        if (columnNames.contains(name)) {
+            throw new IllegalArgumentException(String.format("Duplicate column %s", name));
+        }
+        
+        columnNames.add(name);
+        columnTypes.add(type);
+        columns.add(new Column());
+        return this;
+    }
+    
+    public void addRow(Object... values) {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException(String.format("Expected %s values, got %s", columns.size(), values.length));
+        }
+        
+        for (int index = 0; index < values.length; index++) {
+            Object value = values[index];
+            if (columnTypes.get(index) == ColumnType.INT) {
+                if (!(value instanceof Number)) {
+                    throw new IllegalArgumentException(String.format("Column %s requires a number", columnNames.get(index)));
+                }
+                
+                columns.get(index).add(((Number) value).intValue());
+            } else {
+                columns.get(index).add(strings.add(value != null ? value.toString() : null));
+            }
+        }
+        
+        rowCount++;
+    }
+    
+    public void write(Path path) throws IOException {
+        int[] columnNameIndexes = new int[columnNames.size()];
+        for (int index = 0; index < columnNames.size(); index++) {
+            columnNameIndexes[index] = strings.add(columnNames.get(index));
+        }
+        
+        // Sort the pool so readers can binary search it, then remap every stored index to its sorted position
+        int[] order = strings.sort();
+        int[] remap = new int[order.length];
+        for (int index = 0; index < order.length; index++) {
+            remap[order[index]] = index;
+        }
+        
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+            outputStream.writeInt(MAGIC);
+            outputStream.writeInt(VERSION);
+            outputStream.writeInt(rowCount);
+            outputStream.writeInt(columns.size());
+            outputStream.writeInt(strings.size());
+            outputStream.writeInt(strings.getDataLength());
+            
+            for (int index = 0; index < columns.size(); index++) {
+                outputStream.writeInt(remap[columnNameIndexes[index]]);
+                outputStream.writeInt(columnTypes.get(index).ordinal());
+            }
+            
+            strings.writeOffsets(outputStream, order);
+            
+            for (int index = 0; index < columns.size(); index++) {
+                Column column = columns.get(index);
+                boolean string = columnTypes.get(index) == ColumnType.STRING;
+                for (int row = 0; row < rowCount; row++) {
+                    int value = column.values[row];
+                    outputStream.writeInt(string && value != -1 ? remap[value] : value);
+                }
+            }
+            
+            strings.writeData(outputStream, order);
+        }
+        
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    public int getRowCount() {
+        return rowCount;
+    }
+    
+    private static class Column {
+        
+        private int[] values = new int[256];
+        private int size;
+        
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs downloads on a shared pool while limiting the number of concurrent connections to each host. Downloads beyond
+ * the limit wait in a queue for their host rather than occupying a pool thread, so other hosts are not held up.
+ */
+public class DownloadScheduler implements AutoCloseable {
+    
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+    private final ExecutorService executorService;
+    private final int connections;
+    
+    public DownloadScheduler(int threads, int connections) {
+        this.executorService = Executors.newFixedThreadPool(Math.max(threads, 1), Toolbox.newThreadFactory("Download Thread #%d"));
+        this.connections = Math.max(connections, 1);
+    }
+    
+    public <T> Future<T> submit(String url, Callable<T> callable) {
+        FutureTask<T> task = new FutureTask<>(callable);
+        hosts.computeIfAbsent(getHost(url), key -> new Host()).submit(task);
+        return task;
+    }
+    
+    /**
+     * Cancels queued downloads, interrupts running downloads and waits for them to finish.
+     */
+    @Override
+    public void close() {
+        executorService.shutdownNow();
+        for (Host host : hosts.values()) {
+            host.cancel();
+        }
+        
+        try {
+            if (!executorService.awaitTermination(1, TimeUnit.MINUTES)) {
+                Analysis.getInstance().getLogger().warn("Download threads did not terminate");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private static String getHost(String url) {
+        try {
+            return new URL(url).getHost().toLowerCase();
+        } catch (MalformedURLException ex) {
+            return "";
+        }
+    }
+    
+    private class Host {
+        
+        private final Queue<FutureTask<?>> pending = new ArrayDeque<>();
+        private int active;
+        
+        private synchronized void submit(FutureTask<?> task) {
+            if (active < connections) {
+                active++;
+                execute(task);
+            } else {
+                pending.add(task);
+            }
+        }
+        
+        /**
+         * Hands the connection to the next queued download for this host, or frees it if none are queued.
+         */
+        private synchronized void release() {
+            FutureTask<?> task = pending.poll();
+            if (task != null) {
+                execute(task);
+            } else {
+                active--;
+            }
+        }
+        
+        private synchronized void cancel() {
+            FutureTask<?> task;
+            while ((task = pending.poll()) != null) {
+                task.cancel(false);
+            }
+        }
+        
+        private void execute(FutureTask<?> task) {
+            try {
+                executorService.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        release();
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                task.cancel(false);
+                active--;
+            }
+        }
+    }
+}
@@ -16,17 +16,30 @@
 
 package io.github.lxgaming.analysis.common.util;
 
+import io.github.lxgaming.analysis.common.Analysis;
+
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
-import java.nio.file.Files;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class HashUtils {
     
     private static final int BUFFER_SIZE = 4096;
+    private static final int CHANNEL_BUFFER_SIZE = 1024 * 1024;
+    private static final char[] HEX_CHARACTERS = "0123456789abcdef".toCharArray();
+    private static final ThreadLocal<ByteBuffer> CHANNEL_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(CHANNEL_BUFFER_SIZE));
     
     public static boolean sha1(InputStream inputStream, String hash) throws IOException {
         return sha1(inputStream).equalsIgnoreCase(hash);
@@ -46,6 +59,37 @@ public class HashUtils {
         return toString(bytes);
     }
     
+    /**
+     * Calculates the SHA-1 of each of the provided {@link java.nio.file.Path Path}s across the specified number of threads.
+     *
+     * @param paths The {@link java.nio.file.Path Path}s to hash.
+     * @param threads The number of threads.
+     * @return The SHA-1 of each {@link java.nio.file.Path Path} in iteration order, paths which could not be read are omitted.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public static Map<Path, String> sha1(Collection<Path> paths, int threads) throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.max(Math.min(threads, paths.size()), 1), Toolbox.newThreadFactory("Hash Thread #%d"));
+        try {
+            Map<Path, Future<String>> futures = new LinkedHashMap<>();
+            for (Path path : paths) {
+                futures.put(path, executorService.submit(() -> sha1(path)));
+            }
+            
+            Map<Path, String> hashes = new LinkedHashMap<>();
+            for (Map.Entry<Path, Future<String>> entry : futures.entrySet()) {
+                try {
+                    hashes.put(entry.getKey(), entry.getValue().get());
+                } catch (ExecutionException ex) {
+                    Analysis.getInstance().getLogger().warn("Encountered an error while hashing {}", entry.getKey().getFileName(), ex.getCause());
+                }
+            }
+            
+            return hashes;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+    
     public static MessageDigest sha1() {
         return getDigest("SHA-1");
     }
@@ -55,22 +99,44 @@ public class HashUtils {
     }
     
     public static String toString(byte[] bytes) {
-        return String.format("%040x", new BigInteger(1, bytes));
+        char[] characters = new char[bytes.length * 2];
+        for (int index = 0; index < bytes.length; index++) {
+            characters[index * 2] = HEX_CHARACTERS[(bytes[index] >> 4) & 0x0F];
+            characters[index * 2 + 1] = HEX_CHARACTERS[bytes[index] & 0x0F];
+        }
+        
+        return new String(characters);
     }
     
-    private static byte[] digest(MessageDigest digest, Path path) throws IOException {
-        try (InputStream inputStream = Files.newInputStream(path)) {
-            return digest(digest, inputStream);
+    public static void update(MessageDigest digest, Path path) throws IOException {
+        ByteBuffer buffer = CHANNEL_BUFFER.get();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            buffer.clear();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                digest.update(buffer);
+                buffer.clear();
+            }
+        } finally {
+            buffer.clear();
         }
     }
     
-    private static byte[] digest(MessageDigest digest, InputStream inputStream) throws IOException {
+    public static void update(MessageDigest digest, InputStream inputStream) throws IOException {
         byte[] buffer = new byte[BUFFER_SIZE];
         int read;
         while ((read = inputStream.read(buffer)) != -1) {
             digest.update(buffer, 0, read);
         }
-        
+    }
+    
+    private static byte[] digest(MessageDigest digest, Path path) throws IOException {
+        update(digest, path);
+        return digest.digest();
+    }
+    
+    private static byte[] digest(MessageDigest digest, InputStream inputStream) throws IOException {
+        update(digest, inputStream);
         return digest.digest();
     }
     
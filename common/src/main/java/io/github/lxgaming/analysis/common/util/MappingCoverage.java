@@ -0,0 +1,188 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates how many classes, fields and methods of each package were mapped by MCP and Yarn while mappings are
+ * applied concurrently. Unknown members are only logged for every {@code logInterval}th occurrence.
+ */
+public class MappingCoverage {
+    
+    // Cached as values() returns a new array on every call
+    private static final Kind[] KINDS = Kind.values();
+    private static final Status[] STATUSES = Status.values();
+    
+    private final boolean mcp;
+    private final boolean yarn;
+    private final int logInterval;
+    private final Map<String, Entry> entries;
+    private final AtomicLong unknownCounter;
+    
+    public MappingCoverage(boolean mcp, boolean yarn, int logInterval) {
+        this.mcp = mcp;
+        this.yarn = yarn;
+        this.logInterval = logInterval;
+        this.entries = new ConcurrentHashMap<>();
+        this.unknownCounter = new AtomicLong();
+    }
+    
+    /**
+     * Returns the {@link Entry} for the package of the provided class, the class is expected to use its deobfuscated name.
+     */
+    public Entry getEntry(String className) {
+        int index = className.lastIndexOf('.');
+        return entries.computeIfAbsent(index != -1 ? className.substring(0, index) : "", Entry::new);
+    }
+    
+    /**
+     * @return {@code true} if this unknown member should be logged.
+     */
+    public boolean sample() {
+        return logInterval > 0 && unknownCounter.getAndIncrement() % logInterval == 0;
+    }
+    
+    public long getTotal(Kind kind, Status status) {
+        long total = 0;
+        for (Entry entry : entries.values()) {
+            total += entry.get(kind, status);
+        }
+        
+        return total;
+    }
+    
+    public long getTotal(Kind kind) {
+        long total = 0;
+        for (Status status : STATUSES) {
+            total += getTotal(kind, status);
+        }
+        
+        return total;
+    }
+    
+    /**
+     * Writes one record per package, sorted by name.
+     */
+    public void write(OutputSink sink) throws IOException {
+        List<Entry> sortedEntries = new ArrayList<>(entries.values());
+        sortedEntries.sort((entry1, entry2) -> entry1.getName().compareTo(entry2.getName()));
+        for (Entry entry : sortedEntries) {
+            JsonWriter jsonWriter = sink.beginRecord();
+            jsonWriter.beginObject();
+            jsonWriter.name("package").value(entry.getName());
+            for (Kind kind : KINDS) {
+                jsonWriter.name(kind.getName()).beginObject();
+                for (Status status : STATUSES) {
+                    jsonWriter.name(status.getName()).value(entry.get(kind, status));
+                }
+                
+                jsonWriter.endObject();
+            }
+            
+            jsonWriter.endObject();
+            sink.endRecord();
+        }
+    }
+    
+    public boolean isMcp() {
+        return mcp;
+    }
+    
+    public boolean isYarn() {
+        return yarn;
+    }
+    
+    public static class Entry {
+        
+        private final String name;
+        private final AtomicLongArray counts;
+        
+        private Entry(String name) {
+            this.name = name;
+            this.counts = new AtomicLongArray(KINDS.length * STATUSES.length);
+        }
+        
+        public void record(Kind kind, boolean mcp, boolean yarn) {
+            counts.incrementAndGet(getIndex(kind, Status.of(mcp, yarn)));
+        }
+        
+        public long get(Kind kind, Status status) {
+            return counts.get(getIndex(kind, status));
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        private static int getIndex(Kind kind, Status status) {
+            return kind.ordinal() * STATUSES.length + status.ordinal();
+        }
+    }
+    
+    public enum Kind {
+        
+        CLASS("classes"),
+        FIELD("fields"),
+        METHOD("methods");
+        
+        private final String name;
+        
+        Kind(String name) {
+            this.name = name;
+        }
+        
+        public String getName() {
+            return name;
+        }
+    }
+    
+    public enum Status {
+        
+        MAPPED("mapped"),
+        MCP_ONLY("mcpOnly"),
+        YARN_ONLY("yarnOnly"),
+        UNMAPPED("unmapped");
+        
+        private final String name;
+        
+        Status(String name) {
+            this.name = name;
+        }
+        
+        public static Status of(boolean mcp, boolean yarn) {
+            if (mcp) {
+                return yarn ? MAPPED : MCP_ONLY;
+            }
+            
+            return yarn ? YARN_ONLY : UNMAPPED;
+        }
+        
+        public String getName() {
+            return name;
+        }
+    }
+}
+
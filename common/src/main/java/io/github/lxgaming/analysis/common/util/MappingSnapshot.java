@@ -0,0 +1,337 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Read-only, memory-mapped snapshot of a class, field and method mapping.
+ *
+ * <p>The file consists of a header, a string offset table, fixed-width class, field and method records and the UTF-8
+ * string data. Class records are sorted by their obfuscated name and are looked up with a binary search directly
+ * against the mapped bytes, the field and method records of each class are stored contiguously and indexed by
+ * obfuscated name (and descriptor for methods) the first time a member of that class is remapped.</p>
+ */
+public class MappingSnapshot {
+    
+    private static final int MAGIC = 0x4D414D53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 28;
+    private static final int CLASS_SIZE = 24;
+    private static final int FIELD_SIZE = 8;
+    private static final int METHOD_SIZE = 12;
+    
+    private final ByteBuffer buffer;
+    private final AtomicReferenceArray<MemberIndex> memberIndexes;
+    private final int stringCount;
+    private final int classCount;
+    private final int fieldCount;
+    private final int methodCount;
+    private final int stringOffsetsPosition;
+    private final int classesPosition;
+    private final int fieldsPosition;
+    private final int methodsPosition;
+    private final int stringDataPosition;
+    
+    private MappingSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("Unsupported Mapping Snapshot");
+        }
+        
+        this.stringCount = buffer.getInt(8);
+        this.classCount = buffer.getInt(12);
+        this.fieldCount = buffer.getInt(16);
+        this.methodCount = buffer.getInt(20);
+        int stringDataLength = buffer.getInt(24);
+        
+        this.stringOffsetsPosition = HEADER_SIZE;
+        this.classesPosition = stringOffsetsPosition + (stringCount + 1) * 4;
+        this.fieldsPosition = classesPosition + classCount * CLASS_SIZE;
+        this.methodsPosition = fieldsPosition + fieldCount * FIELD_SIZE;
+        this.stringDataPosition = methodsPosition + methodCount * METHOD_SIZE;
+        if (stringDataPosition + stringDataLength != buffer.limit()) {
+            throw new IllegalStateException("Truncated Mapping Snapshot");
+        }
+        
+        this.memberIndexes = new AtomicReferenceArray<>(classCount);
+    }
+    
+    public static MappingSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappingSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+    
+    /**
+     * Opens the snapshot at {@code snapshotPath}, creating it from {@code sourcePath} with the provided
+     * {@link Loader} if it does not exist, is older than the source or cannot be read.
+     *
+     * @param sourcePath The {@link java.nio.file.Path Path} of the source mapping.
+     * @param snapshotPath The {@link java.nio.file.Path Path} of the snapshot.
+     * @param loader The {@link Loader} used to parse the source mapping.
+     * @return The {@link MappingSnapshot}.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static MappingSnapshot open(Path sourcePath, Path snapshotPath, Loader loader) throws IOException {
+        if (Files.exists(snapshotPath) && Files.getLastModifiedTime(snapshotPath).compareTo(Files.getLastModifiedTime(sourcePath)) >= 0) {
+            try {
+                return open(snapshotPath);
+            } catch (IllegalStateException ex) {
+                // Rebuild snapshots from older versions
+            }
+        }
+        
+        Builder builder = new Builder();
+        loader.load(sourcePath, builder);
+        builder.write(snapshotPath);
+        return open(snapshotPath);
+    }
+    
+    public ClassMapping getClass(String name) {
+        byte[] key = name.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = classCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = compare(getInt(classesPosition + middle * CLASS_SIZE), key);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return new ClassMapping(middle);
+            }
+        }
+        
+        return null;
+    }
+    
+    public int getClassCount() {
+        return classCount;
+    }
+    
+    public int getFieldCount() {
+        return fieldCount;
+    }
+    
+    public int getMethodCount() {
+        return methodCount;
+    }
+    
+    private int getInt(int position) {
+        return buffer.getInt(position);
+    }
+    
+    private String getString(int index) {
+        if (index == -1) {
+            return null;
+        }
+        
+        return StringTable.read(buffer, stringOffsetsPosition, stringDataPosition, index);
+    }
+    
+    private int compare(int index, byte[] key) {
+        if (index == -1) {
+            return -1;
+        }
+        
+        return StringTable.compare(buffer, stringOffsetsPosition, stringDataPosition, index, key);
+    }
+    
+    private MemberIndex getMemberIndex(int index) {
+        MemberIndex memberIndex = memberIndexes.get(index);
+        if (memberIndex == null) {
+            memberIndexes.compareAndSet(index, null, new MemberIndex(classesPosition + index * CLASS_SIZE));
+            memberIndex = memberIndexes.get(index);
+        }
+        
+        return memberIndex;
+    }
+    
+    public final class ClassMapping {
+        
+        private final int index;
+        private final int position;
+        
+        private ClassMapping(int index) {
+            this.index = index;
+            this.position = classesPosition + index * CLASS_SIZE;
+        }
+        
+        public String getName() {
+            return getString(getInt(position));
+        }
+        
+        public String getMapped() {
+            return getString(getInt(position + 4));
+        }
+        
+        public String remapField(String name) {
+            return getMemberIndex(index).fields.get(name);
+        }
+        
+        public String remapMethod(String name, String descriptor) {
+            return getMemberIndex(index).methods.get(name + descriptor);
+        }
+    }
+    
+    private final class MemberIndex {
+        
+        private final Map<String, String> fields;
+        private final Map<String, String> methods;
+        
+        private MemberIndex(int position) {
+            int fieldStart = getInt(position + 8);
+            int fieldCount = getInt(position + 12);
+            this.fields = new HashMap<>(Math.max((int) (fieldCount / 0.75F) + 1, 16));
+            for (int index = fieldStart; index < fieldStart + fieldCount; index++) {
+                int fieldPosition = fieldsPosition + index * FIELD_SIZE;
+                fields.putIfAbsent(getString(getInt(fieldPosition)), getString(getInt(fieldPosition + 4)));
+            }
+            
+            // Descriptors always begin with '(' so the concatenated key is unambiguous
+            int methodStart = getInt(position + 16);
+            int methodCount = getInt(position + 20);
+            this.methods = new HashMap<>(Math.max((int) (methodCount / 0.75F) + 1, 16));
+            for (int index = methodStart; index < methodStart + methodCount; index++) {
+                int methodPosition = methodsPosition + index * METHOD_SIZE;
+                methods.putIfAbsent(getString(getInt(methodPosition)) + getString(getInt(methodPosition + 4)), getString(getInt(methodPosition + 8)));
+            }
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Loader {
+        
+        void load(Path path, Builder builder) throws IOException;
+    }
+    
+    public static class Builder {
+        
+        private final StringTable strings = new StringTable();
+        private final List<ClassBuilder> classes = new ArrayList<>();
+        
+        public ClassBuilder addClass(String name, String mapped) {
+            ClassBuilder classBuilder = new ClassBuilder(this, strings.add(name), strings.add(mapped));
+            classes.add(classBuilder);
+            return classBuilder;
+        }
+        
+        public void write(Path path) throws IOException {
+            List<ClassBuilder> sortedClasses = new ArrayList<>(classes);
+            sortedClasses.sort(Comparator.comparing(classBuilder -> strings.getBytes(classBuilder.name), StringTable::compare));
+            
+            int fieldCount = 0;
+            int methodCount = 0;
+            for (ClassBuilder classBuilder : sortedClasses) {
+                fieldCount += classBuilder.fields.size() / 2;
+                methodCount += classBuilder.methods.size() / 3;
+            }
+            
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            
+            Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+            try (DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryPath)))) {
+                outputStream.writeInt(MAGIC);
+                outputStream.writeInt(VERSION);
+                outputStream.writeInt(strings.size());
+                outputStream.writeInt(sortedClasses.size());
+                outputStream.writeInt(fieldCount);
+                outputStream.writeInt(methodCount);
+                outputStream.writeInt(strings.getDataLength());
+                
+                int[] order = strings.getOrder();
+                strings.writeOffsets(outputStream, order);
+                
+                int fieldIndex = 0;
+                int methodIndex = 0;
+                for (ClassBuilder classBuilder : sortedClasses) {
+                    outputStream.writeInt(classBuilder.name);
+                    outputStream.writeInt(classBuilder.mapped);
+                    outputStream.writeInt(fieldIndex);
+                    outputStream.writeInt(classBuilder.fields.size() / 2);
+                    outputStream.writeInt(methodIndex);
+                    outputStream.writeInt(classBuilder.methods.size() / 3);
+                    fieldIndex += classBuilder.fields.size() / 2;
+                    methodIndex += classBuilder.methods.size() / 3;
+                }
+                
+                for (ClassBuilder classBuilder : sortedClasses) {
+                    for (int value : classBuilder.fields) {
+                        outputStream.writeInt(value);
+                    }
+                }
+                
+                for (ClassBuilder classBuilder : sortedClasses) {
+                    for (int value : classBuilder.methods) {
+                        outputStream.writeInt(value);
+                    }
+                }
+                
+                strings.writeData(outputStream, order);
+            }
+            
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    public static class ClassBuilder {
+        
+        private final Builder builder;
+        private final int name;
+        private final int mapped;
+        private final List<Integer> fields = new ArrayList<>();
+        private final List<Integer> methods = new ArrayList<>();
+        
+        private ClassBuilder(Builder builder, int name, int mapped) {
+            this.builder = builder;
+            this.name = name;
+            this.mapped = mapped;
+        }
+        
+        public ClassBuilder addField(String name, String mapped) {
+            fields.add(builder.strings.add(name));
+            fields.add(builder.strings.add(mapped));
+            return this;
+        }
+        
+        public ClassBuilder addMethod(String name, String descriptor, String mapped) {
+            methods.add(builder.strings.add(name));
+            methods.add(builder.strings.add(descriptor));
+            methods.add(builder.strings.add(mapped));
+            return this;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import com.google.gson.stream.JsonWriter;
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes analysis output either as a single JSON document or as a sequence of records.
+ *
+ * <p>In {@link OutputFormat#JSON} records are collected into a top-level array, or a top-level object when they are
+ * keyed. In {@link OutputFormat#NDJSON} every record is written compactly on its own line and keys are dropped, records
+ * are expected to identify themselves.</p>
+ */
+public class OutputSink implements Closeable {
+    
+    private static final int BUFFER_SIZE = 65536;
+    
+    private final Writer writer;
+    private final OutputFormat format;
+    private final boolean compact;
+    private final JsonWriter jsonWriter;
+    private State state;
+    private boolean pending;
+    
+    private OutputSink(Writer writer, OutputFormat format, boolean compact) {
+        this.writer = writer;
+        this.format = format;
+        this.compact = compact;
+        this.jsonWriter = format == OutputFormat.JSON ? newJsonWriter(writer, compact) : null;
+        this.state = State.EMPTY;
+    }
+    
+    public static OutputSink open(Path path, OutputFormat format, OutputCompression compression, boolean compact) throws IOException {
+        OutputStream outputStream = Files.newOutputStream(path);
+        try {
+            if (compression == OutputCompression.GZIP) {
+                outputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+            } else if (compression == OutputCompression.ZSTD) {
+                outputStream = new ZstdOutputStream(new BufferedOutputStream(outputStream, BUFFER_SIZE));
+            }
+            
+            return new OutputSink(new OutputStreamWriter(new BufferedOutputStream(outputStream, BUFFER_SIZE), StandardCharsets.UTF_8), format, compact);
+        } catch (IOException | RuntimeException ex) {
+            outputStream.close();
+            throw ex;
+        }
+    }
+    
+    /**
+     * Writes the provided object as the entire output.
+     */
+    public void write(Object object) throws IOException {
+        if (state != State.EMPTY) {
+            throw new IllegalStateException(String.format("Cannot write document after %s", state));
+        }
+        
+        state = State.DOCUMENT;
+        pending = true;
+        if (format == OutputFormat.JSON) {
+            toJson(object, jsonWriter);
+        } else {
+            toJson(object, newJsonWriter(writer, true));
+            writer.write('\n');
+        }
+        
+        pending = false;
+    }
+    
+    public void writeRecord(Object object) throws IOException {
+        toJson(object, beginRecord());
+        endRecord();
+    }
+    
+    public void writeRecord(String key, Object object) throws IOException {
+        toJson(object, beginRecord(key));
+        endRecord();
+    }
+    
+    /**
+     * Begins an unkeyed record, the returned {@link JsonWriter} must be used to write exactly one value before
+     * {@link #endRecord()} is called.
+     */
+    public JsonWriter beginRecord() throws IOException {
+        return beginRecord(State.ARRAY, null);
+    }
+    
+    /**
+     * Begins a keyed record, the returned {@link JsonWriter} must be used to write exactly one value before
+     * {@link #endRecord()} is called.
+     */
+    public JsonWriter beginRecord(String key) throws IOException {
+        return beginRecord(State.OBJECT, key);
+    }
+    
+    public void endRecord() throws IOException {
+        if (format == OutputFormat.NDJSON) {
+            writer.write('\n');
+        }
+        
+        pending = false;
+    }
+    
+    /**
+     * Completes the JSON document and closes the underlying stream. If a record was left unfinished, because the
+     * caller failed part way through it, the output is abandoned as is and only the stream is closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (format == OutputFormat.JSON && !pending) {
+                if (state == State.EMPTY || state == State.ARRAY) {
+                    if (state == State.EMPTY) {
+                        jsonWriter.beginArray();
+                    }
+                    
+                    jsonWriter.endArray();
+                } else if (state == State.OBJECT) {
+                    jsonWriter.endObject();
+                }
+            }
+        } finally {
+            // JsonWriter holds nothing but a pending name, so closing the writer releases everything
+            writer.close();
+        }
+    }
+    
+    private JsonWriter beginRecord(State recordState, String key) throws IOException {
+        if (state == State.EMPTY) {
+            state = recordState;
+            if (format == OutputFormat.JSON) {
+                if (state == State.ARRAY) {
+                    jsonWriter.beginArray();
+                } else {
+                    jsonWriter.beginObject();
+                }
+            }
+        } else if (state != recordState) {
+            throw new IllegalStateException(String.format("Cannot begin %s record in %s", recordState, state));
+        }
+        
+        pending = true;
+        if (format != OutputFormat.JSON) {
+            return newJsonWriter(writer, true);
+        }
+        
+        if (key != null) {
+            jsonWriter.name(key);
+        }
+        
+        return jsonWriter;
+    }
+    
+    private void toJson(Object object, JsonWriter jsonWriter) throws IOException {
+        if (object != null) {
+            Toolbox.GSON.toJson(object, object.getClass(), jsonWriter);
+        } else {
+            jsonWriter.nullValue();
+        }
+    }
+    
+    private static JsonWriter newJsonWriter(Writer writer, boolean compact) {
+        JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.setHtmlSafe(false);
+        jsonWriter.setSerializeNulls(true);
+        if (!compact) {
+            jsonWriter.setIndent("  ");
+        }
+        
+        return jsonWriter;
+    }
+    
+    public OutputFormat getFormat() {
+        return format;
+    }
+    
+    public boolean isCompact() {
+        return compact;
+    }
+    
+    private enum State {
+        
+        EMPTY, DOCUMENT, ARRAY, OBJECT
+    }
+}
@@ -16,22 +16,370 @@
 
 package io.github.lxgaming.analysis.common.util;
 
+import org.slf4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
-public class Profiler {
+/**
+ * Measures elapsed time, either as a standalone stopwatch or as a named span within a hierarchy of phases.
+ *
+ * <p>Spans started with {@link #start(String)} are nested under the span currently open on the same thread, work
+ * handed to another thread should pass its parent to {@link #start(String, Profiler)}. Completed spans are recorded
+ * with the thread they ran on and the bytes that thread allocated, and are emitted as JFR events when the runtime
+ * supports them.</p>
+ *
+ * <p>Fine-grained spans started with {@link #trace(String, Profiler)} are only recorded while tracing is enabled and
+ * are left out of the summary.</p>
+ */
+public class Profiler implements AutoCloseable {
     
+    private static final ThreadLocal<Profiler> CURRENT = new ThreadLocal<>();
+    private static final List<Profiler> SPANS = Collections.synchronizedList(new ArrayList<>());
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean ALLOCATION_SUPPORTED = isAllocationSupported();
+    private static volatile boolean tracing;
+    
+    private final String name;
+    private final Profiler parent;
+    private final Profiler previous;
+    private final boolean detail;
+    private final long threadId;
+    private final String threadName;
     private final long startTime;
+    private final long startAllocatedBytes;
+    private final Object event;
+    private volatile long duration;
+    private long allocatedBytes;
     
     public Profiler() {
+        this.name = null;
+        this.parent = null;
+        this.previous = null;
+        this.detail = false;
+        this.threadId = -1L;
+        this.threadName = null;
+        this.startTime = System.nanoTime();
+        this.startAllocatedBytes = -1L;
+        this.event = null;
+        this.duration = -1L;
+        this.allocatedBytes = -1L;
+    }
+    
+    private Profiler(String name, Profiler parent, boolean detail) {
+        this.name = name;
+        this.parent = parent;
+        this.previous = CURRENT.get();
+        this.detail = detail;
+        this.threadId = Thread.currentThread().getId();
+        this.threadName = Thread.currentThread().getName();
+        this.startAllocatedBytes = getThreadAllocatedBytes();
+        this.event = SpanEvents.begin();
+        this.duration = -1L;
+        this.allocatedBytes = -1L;
         this.startTime = System.nanoTime();
     }
     
+    /**
+     * Starts a span nested under the span currently open on this thread.
+     */
+    public static Profiler start(String name) {
+        return start(name, CURRENT.get());
+    }
+    
+    /**
+     * Starts a span nested under the provided parent, which may have been started on another thread.
+     */
+    public static Profiler start(String name, Profiler parent) {
+        Profiler profiler = new Profiler(name, parent, false);
+        CURRENT.set(profiler);
+        return profiler;
+    }
+    
+    /**
+     * Starts a fine-grained span nested under the provided parent if tracing is enabled.
+     *
+     * @return The span, or {@code null} if tracing is disabled.
+     */
+    public static Profiler trace(String name, Profiler parent) {
+        if (!tracing) {
+            return null;
+        }
+        
+        Profiler profiler = new Profiler(name, parent, true);
+        CURRENT.set(profiler);
+        return profiler;
+    }
+    
+    public static boolean isTracing() {
+        return tracing;
+    }
+    
+    public static void setTracing(boolean tracing) {
+        Profiler.tracing = tracing;
+    }
+    
+    /**
+     * @return The span currently open on this thread, or {@code null}.
+     */
+    public static Profiler current() {
+        return CURRENT.get();
+    }
+    
+    public static List<Profiler> getSpans() {
+        synchronized (SPANS) {
+            return new ArrayList<>(SPANS);
+        }
+    }
+    
+    public static void reset() {
+        SPANS.clear();
+        CURRENT.remove();
+    }
+    
+    /**
+     * Logs every completed span as a table, children are indented beneath their parent in the order they started.
+     */
+    public static void logSummary(Logger logger) {
+        List<Profiler> spans = getSpans();
+        if (spans.isEmpty()) {
+            return;
+        }
+        
+        Map<Profiler, List<Profiler>> children = new HashMap<>();
+        List<Profiler> roots = new ArrayList<>();
+        for (Profiler span : spans) {
+            if (span.isDetail()) {
+                continue;
+            }
+            
+            if (span.getParent() != null && spans.contains(span.getParent())) {
+                children.computeIfAbsent(span.getParent(), key -> new ArrayList<>()).add(span);
+            } else {
+                roots.add(span);
+            }
+        }
+        
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("%-48s %-24s %12s %7s %12s", "Phase", "Thread", "Duration", "Share", "Allocated"));
+        for (Profiler root : roots) {
+            appendSummary(lines, root, root, children, 0);
+        }
+        
+        logger.info("Profiler Summary:");
+        for (String line : lines) {
+            logger.info(line);
+        }
+    }
+    
+    private static void appendSummary(List<String> lines, Profiler span, Profiler root, Map<Profiler, List<Profiler>> children, int depth) {
+        char[] indent = new char[depth * 2];
+        Arrays.fill(indent, ' ');
+        lines.add(String.format("%-48s %-24s %12s %6.1f%% %12s",
+                new String(indent) + span.getName(),
+                span.getThreadName(),
+                String.format("%,.1f ms", span.getDuration() / 1_000_000D),
+                root.getDuration() > 0 ? span.getDuration() * 100D / root.getDuration() : 100D,
+                span.getAllocatedBytes() >= 0 ? String.format("%,.1f MB", span.getAllocatedBytes() / 1048576D) : "-"));
+        
+        List<Profiler> spans = children.get(span);
+        if (spans == null) {
+            return;
+        }
+        
+        spans.sort(Comparator.comparingLong(Profiler::getStartTime));
+        for (Profiler child : spans) {
+            appendSummary(lines, child, root, children, depth + 1);
+        }
+    }
+    
+    /**
+     * Completes the span, standalone stopwatches are unaffected.
+     */
+    @Override
+    public void close() {
+        if (name == null || duration >= 0) {
+            return;
+        }
+        
+        this.duration = System.nanoTime() - startTime;
+        long endAllocatedBytes = getThreadAllocatedBytes();
+        this.allocatedBytes = startAllocatedBytes >= 0 && endAllocatedBytes >= 0 ? endAllocatedBytes - startAllocatedBytes : -1L;
+        if (CURRENT.get() == this) {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+        
+        SPANS.add(this);
+        SpanEvents.commit(event, this);
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public Profiler getParent() {
+        return parent;
+    }
+    
+    public boolean isDetail() {
+        return detail;
+    }
+    
+    public long getThreadId() {
+        return threadId;
+    }
+    
+    public String getThreadName() {
+        return threadName;
+    }
+    
+    public long getStartTime() {
+        return startTime;
+    }
+    
+    /**
+     * @return The duration of a completed span, otherwise the time elapsed so far.
+     */
+    public long getDuration() {
+        return duration >= 0 ? duration : System.nanoTime() - startTime;
+    }
+    
+    /**
+     * @return The bytes allocated by the thread which ran the span, or {@code -1} if this is not supported.
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
     public String toString(boolean abbreviate) {
-        return Toolbox.getDuration(System.nanoTime() - startTime, TimeUnit.NANOSECONDS, abbreviate);
+        return Toolbox.getDuration(getDuration(), TimeUnit.NANOSECONDS, abbreviate);
     }
     
     @Override
     public String toString() {
         return toString(true);
     }
-}
\ No newline at end of file
+    
+    private static boolean isAllocationSupported() {
+        try {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+                return threadMXBean.isThreadAllocatedMemorySupported() && threadMXBean.isThreadAllocatedMemoryEnabled();
+            }
+        } catch (Throwable ex) {
+            // no-op
+        }
+        
+        return false;
+    }
+    
+    private static long getThreadAllocatedBytes() {
+        if (!ALLOCATION_SUPPORTED) {
+            return -1L;
+        }
+        
+        return ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    
+    /**
+     * Emits spans as {@code io.github.lxgaming.analysis.Span} JFR events. The event type is defined through
+     * {@code jdk.jfr.EventFactory} at runtime as the JFR API is not available to Java 8 builds, on runtimes without JFR
+     * this does nothing.
+     */
+    private static final class SpanEvents {
+        
+        private static final Object FACTORY;
+        private static final Method NEW_EVENT;
+        private static final Method BEGIN;
+        private static final Method END;
+        private static final Method SET;
+        private static final Method COMMIT;
+        
+        static {
+            Object factory = null;
+            Method newEvent = null;
+            Method begin = null;
+            Method end = null;
+            Method set = null;
+            Method commit = null;
+            try {
+                Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+                Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+                Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+                Class<?> eventClass = Class.forName("jdk.jfr.Event");
+                
+                Constructor<?> annotationElementConstructor = annotationElementClass.getConstructor(Class.class, Object.class);
+                List<Object> annotations = new ArrayList<>();
+                annotations.add(annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Name"), "io.github.lxgaming.analysis.Span"));
+                annotations.add(annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Label"), "Analysis Span"));
+                annotations.add(annotationElementConstructor.newInstance(Class.forName("jdk.jfr.Category"), new String[]{"Minecraft Analysis"}));
+                
+                Constructor<?> valueDescriptorConstructor = valueDescriptorClass.getConstructor(Class.class, String.class);
+                List<Object> fields = new ArrayList<>();
+                fields.add(valueDescriptorConstructor.newInstance(String.class, "name"));
+                fields.add(valueDescriptorConstructor.newInstance(String.class, "parent"));
+                fields.add(valueDescriptorConstructor.newInstance(long.class, "allocatedBytes"));
+                
+                factory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null, annotations, fields);
+                newEvent = eventFactoryClass.getMethod("newEvent");
+                begin = eventClass.getMethod("begin");
+                end = eventClass.getMethod("end");
+                set = eventClass.getMethod("set", int.class, Object.class);
+                commit = eventClass.getMethod("commit");
+            } catch (Throwable ex) {
+                factory = null;
+            }
+            
+            FACTORY = factory;
+            NEW_EVENT = newEvent;
+            BEGIN = begin;
+            END = end;
+            SET = set;
+            COMMIT = commit;
+        }
+        
+        static Object begin() {
+            if (FACTORY == null) {
+                return null;
+            }
+            
+            try {
+                Object event = NEW_EVENT.invoke(FACTORY);
+                BEGIN.invoke(event);
+                return event;
+            } catch (Throwable ex) {
+                return null;
+            }
+        }
+        
+        static void commit(Object event, Profiler profiler) {
+            if (event == null) {
+                return;
+            }
+            
+            try {
+                END.invoke(event);
+                SET.invoke(event, 0, profiler.getName());
+                SET.invoke(event, 1, profiler.getParent() != null ? profiler.getParent().getName() : null);
+                SET.invoke(event, 2, profiler.getAllocatedBytes());
+                COMMIT.invoke(event);
+            } catch (Throwable ex) {
+                // no-op
+            }
+        }
+    }
+}
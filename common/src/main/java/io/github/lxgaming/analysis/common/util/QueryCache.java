@@ -0,0 +1,128 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.entity.QueryCacheEntry;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records the outputs written by each query alongside the fingerprint of the inputs they were produced from, allowing
+ * queries to be skipped while their outputs are still present and the fingerprint is unchanged.
+ */
+public class QueryCache {
+    
+    private final Map<String, QueryCacheEntry> entries = new ConcurrentHashMap<>();
+    private final Path path;
+    private volatile boolean modified;
+    
+    public QueryCache(Path path) {
+        this.path = path;
+    }
+    
+    public void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            QueryCacheEntry[] cacheEntries = Toolbox.GSON.fromJson(reader, QueryCacheEntry[].class);
+            if (cacheEntries == null) {
+                return;
+            }
+            
+            for (QueryCacheEntry entry : cacheEntries) {
+                entries.put(entry.getQuery(), entry);
+            }
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().warn("Encountered an error while reading {}", path.getFileName(), ex);
+        }
+    }
+    
+    public void save() {
+        if (!modified) {
+            return;
+        }
+        
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+                Toolbox.GSON.toJson(new TreeMap<>(entries).values(), writer);
+            }
+            
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            this.modified = false;
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().warn("Encountered an error while writing {}", path.getFileName(), ex);
+        }
+    }
+    
+    /**
+     * Checks whether the query was last executed with the provided fingerprint and all of its outputs are unchanged
+     * in size. Every query writes at least one output, so an entry without any is never considered cached.
+     *
+     * @param query The name of the query.
+     * @param fingerprint The fingerprint of the query inputs.
+     * @return {@code true} if the cached outputs can be reused, otherwise {@code false}.
+     */
+    public boolean isCached(String query, String fingerprint) {
+        QueryCacheEntry entry = entries.get(query);
+        if (entry == null || !entry.getFingerprint().equals(fingerprint) || entry.getOutputs() == null || entry.getOutputs().isEmpty()) {
+            return false;
+        }
+        
+        for (Map.Entry<String, Long> output : entry.getOutputs().entrySet()) {
+            try {
+                if (Files.size(path.resolveSibling(output.getKey())) != output.getValue()) {
+                    return false;
+                }
+            } catch (IOException ex) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    public void record(String query, String fingerprint, Collection<Path> outputs) throws IOException {
+        Map<String, Long> sizes = new TreeMap<>();
+        for (Path output : outputs) {
+            sizes.put(path.getParent().relativize(output).toString().replace('\\', '/'), Files.size(output));
+        }
+        
+        entries.put(query, new QueryCacheEntry(query, fingerprint, sizes));
+        this.modified = true;
+    }
+    
+    public void remove(String query) {
+        if (entries.remove(query) != null) {
+            this.modified = true;
+        }
+    }
+}
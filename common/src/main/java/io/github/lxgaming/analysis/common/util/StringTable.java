@@ -0,0 +1,163 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicated pool of UTF-8 strings shared by {@link MappingSnapshot} and {@link ColumnarWriter}.
+ *
+ * <p>A written table consists of an offset table of {@code size + 1} {@code int32}s followed, anywhere later in the
+ * file, by the concatenated string data. The static methods read strings back directly from a mapped buffer.</p>
+ */
+public class StringTable {
+    
+    private final Map<String, Integer> indexes = new HashMap<>();
+    private final List<byte[]> strings = new ArrayList<>();
+    private int dataLength;
+    
+    /**
+     * @return the index of the provided string, or {@code -1} for {@code null}
+     */
+    public int add(String string) {
+        if (string == null) {
+            return -1;
+        }
+        
+        return indexes.computeIfAbsent(string, key -> {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            strings.add(bytes);
+            dataLength += bytes.length;
+            return strings.size() - 1;
+        });
+    }
+    
+    public byte[] getBytes(int index) {
+        return strings.get(index);
+    }
+    
+    public int size() {
+        return strings.size();
+    }
+    
+    public int getDataLength() {
+        return dataLength;
+    }
+    
+    /**
+     * @return every index ordered by the UTF-8 bytes of its string, so readers can binary search the written table
+     */
+    public int[] sort() {
+        Integer[] order = new Integer[strings.size()];
+        for (int index = 0; index < order.length; index++) {
+            order[index] = index;
+        }
+        
+        Arrays.sort(order, (index, otherIndex) -> compare(strings.get(index), strings.get(otherIndex)));
+        int[] sortedOrder = new int[order.length];
+        for (int index = 0; index < order.length; index++) {
+            sortedOrder[index] = order[index];
+        }
+        
+        return sortedOrder;
+    }
+    
+    /**
+     * Writes the offset table with the strings in the provided order.
+     */
+    public void writeOffsets(DataOutputStream outputStream, int[] order) throws IOException {
+        int offset = 0;
+        for (int index : order) {
+            outputStream.writeInt(offset);
+            offset += strings.get(index).length;
+        }
+        
+        outputStream.writeInt(offset);
+    }
+    
+    /**
+     * Writes the string data in the provided order, which must match the order given to
+     * {@link #writeOffsets(DataOutputStream, int[])}.
+     */
+    public void writeData(DataOutputStream outputStream, int[] order) throws IOException {
+        for (int index : order) {
+            outputStream.write(strings.get(index));
+        }
+    }
+    
+    /**
+     * @return the indexes in the order they were added
+     */
+    public int[] getOrder() {
+        int[] order = new int[strings.size()];
+        for (int index = 0; index < order.length; index++) {
+            order[index] = index;
+        }
+        
+        return order;
+    }
+    
+    public static String read(ByteBuffer buffer, int offsetsPosition, int dataPosition, int index) {
+        int start = buffer.getInt(offsetsPosition + index * 4);
+        int end = buffer.getInt(offsetsPosition + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        for (int offset = 0; offset < bytes.length; offset++) {
+            bytes[offset] = buffer.get(dataPosition + start + offset);
+        }
+        
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Compares the string at the provided index of a written table with {@code key} without decoding it.
+     */
+    public static int compare(ByteBuffer buffer, int offsetsPosition, int dataPosition, int index, byte[] key) {
+        int start = buffer.getInt(offsetsPosition + index * 4);
+        int length = buffer.getInt(offsetsPosition + (index + 1) * 4) - start;
+        for (int offset = 0; offset < Math.min(length, key.length); offset++) {
+            int result = (buffer.get(dataPosition + start + offset) & 0xFF) - (key[offset] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        
+        return length - key.length;
+    }
+    
+    /**
+     * Compares UTF-8 bytes as unsigned values, which orders strings by code point.
+     */
+    public static int compare(byte[] bytes, byte[] otherBytes) {
+        for (int index = 0; index < Math.min(bytes.length, otherBytes.length); index++) {
+            int result = (bytes[index] & 0xFF) - (otherBytes[index] & 0xFF);
+            if (result != 0) {
+                return result;
+            }
+        }
+        
+        return bytes.length - otherBytes.length;
+    }
+}
@@ -21,7 +21,9 @@ import com.google.gson.GsonBuilder;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class Toolbox {
     
@@ -126,6 +128,15 @@ public class Toolbox {
         }
     }
     
+    public static ThreadFactory newThreadFactory(String format) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, String.format(format, counter.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
     public static Path getPath() {
         String userDir = System.getProperty("user.dir");
         if (StringUtils.isNotBlank(userDir)) {
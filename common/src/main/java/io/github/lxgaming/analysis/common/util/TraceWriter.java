@@ -0,0 +1,100 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes {@link Profiler} spans in the Chrome trace event format, which can be opened in Perfetto or
+ * {@code chrome://tracing}. Every span becomes a complete event on the thread it ran on.
+ */
+public class TraceWriter {
+    
+    private static final int PROCESS_ID = 1;
+    
+    public static void write(Path path, String processName, List<Profiler> spans) throws IOException {
+        long origin = Long.MAX_VALUE;
+        Map<Long, String> threads = new LinkedHashMap<>();
+        for (Profiler span : spans) {
+            origin = Math.min(origin, span.getStartTime());
+            threads.putIfAbsent(span.getThreadId(), span.getThreadName());
+        }
+        
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8);
+             JsonWriter jsonWriter = new JsonWriter(writer)) {
+            jsonWriter.setHtmlSafe(false);
+            jsonWriter.beginObject();
+            jsonWriter.name("displayTimeUnit").value("ms");
+            jsonWriter.name("traceEvents").beginArray();
+            writeMetadata(jsonWriter, "process_name", 0L, processName);
+            for (Map.Entry<Long, String> entry : threads.entrySet()) {
+                writeMetadata(jsonWriter, "thread_name", entry.getKey(), entry.getValue());
+            }
+            
+            for (Profiler span : spans) {
+                jsonWriter.beginObject();
+                jsonWriter.name("name").value(span.getName());
+                jsonWriter.name("cat").value(span.isDetail() ? "detail" : "phase");
+                jsonWriter.name("ph").value("X");
+                jsonWriter.name("ts").value((span.getStartTime() - origin) / 1000D);
+                jsonWriter.name("dur").value(span.getDuration() / 1000D);
+                jsonWriter.name("pid").value(PROCESS_ID);
+                jsonWriter.name("tid").value(span.getThreadId());
+                jsonWriter.name("args").beginObject();
+                if (span.getParent() != null) {
+                    jsonWriter.name("parent").value(span.getParent().getName());
+                }
+                
+                if (span.getAllocatedBytes() >= 0) {
+                    jsonWriter.name("allocatedBytes").value(span.getAllocatedBytes());
+                }
+                
+                jsonWriter.endObject();
+                jsonWriter.endObject();
+            }
+            
+            jsonWriter.endArray();
+            jsonWriter.endObject();
+        }
+        
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    private static void writeMetadata(JsonWriter jsonWriter, String name, long threadId, String value) throws IOException {
+        jsonWriter.beginObject();
+        jsonWriter.name("name").value(name);
+        jsonWriter.name("ph").value("M");
+        jsonWriter.name("pid").value(PROCESS_ID);
+        jsonWriter.name("tid").value(threadId);
+        jsonWriter.name("args").beginObject();
+        jsonWriter.name("name").value(value);
+        jsonWriter.endObject();
+        jsonWriter.endObject();
+    }
+}
@@ -17,72 +17,305 @@
 package io.github.lxgaming.analysis.common.util;
 
 import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.configuration.Config;
+import io.github.lxgaming.analysis.common.entity.CacheEntry;
+import io.github.lxgaming.analysis.common.manager.MetricManager;
+import io.github.lxgaming.analysis.common.util.web.HttpTransport;
+import io.github.lxgaming.analysis.common.util.web.Response;
+import io.github.lxgaming.analysis.common.util.web.RetryTransport;
+import io.github.lxgaming.analysis.common.util.web.Transport;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.io.Reader;
-import java.net.HttpURLConnection;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.security.DigestInputStream;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class WebUtils {
     
+    private static final int BUFFER_SIZE = 8192;
+    private static final long RETRY_BACKOFF = 500L;
+    private static volatile Transport transport;
+    
     public static void downloadFile(URL url, Path path) throws IOException {
         downloadFile(url, path, -1, null);
     }
     
     public static void downloadFile(URL url, Path path, long length, String hash) throws IOException {
-        HttpURLConnection connection = createConnection(url);
-        if (connection.getResponseCode() != 200) {
-            throw new IllegalStateException(String.format("Unexpected Response: %s", connection.getResponseCode()));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
         }
         
-        if (length != -1) {
-            long contentLength = connection.getHeaderFieldLong("Content-Length", -1);
-            if (contentLength != length) {
-                throw new IllegalStateException(String.format("Mismatched Size (got %s, expected %s)", contentLength, length));
+        Path partPath = path.resolveSibling(path.getFileName() + ".part");
+        Path validatorPath = path.resolveSibling(path.getFileName() + ".part.validator");
+        
+        // Downloads are retried here rather than by a RetryTransport, as only this loop can resume a partial body
+        int attempts = getAttempts();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                downloadPart(url, partPath, validatorPath, length, hash);
+                break;
+            } catch (IOException ex) {
+                if (attempt >= attempts) {
+                    throw ex;
+                }
+                
+                Analysis.getInstance().getLogger().warn("Download of {} interrupted, resuming ({}/{}): {}", path.getFileName(), attempt, attempts, ex.getMessage());
             }
+            
+            RetryTransport.sleep(url, RETRY_BACKOFF, attempt);
         }
         
-        if (path.getParent() != null) {
-            Files.createDirectories(path.getParent());
+        Files.move(partPath, path, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(validatorPath);
+    }
+    
+    /**
+     * Keeps the file at the provided {@link java.nio.file.Path Path} in sync with the provided {@link java.net.URL URL}
+     * using conditional requests, the ETag and Last-Modified validators are stored alongside the file.
+     *
+     * @param url The {@link java.net.URL URL} to download.
+     * @param path The {@link java.nio.file.Path Path} to download to.
+     * @param ttl The duration in milliseconds a cached file is considered fresh without revalidation.
+     * @return {@code true} if the file was downloaded, {@code false} if the cached file was reused.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static boolean cacheFile(URL url, Path path, long ttl) throws IOException {
+        Path cachePath = path.resolveSibling(path.getFileName() + ".cache");
+        CacheEntry entry = Files.exists(path) ? readCacheEntry(cachePath) : null;
+        if (entry != null && !url.toString().equals(entry.getUrl())) {
+            entry = null;
         }
         
-        if (StringUtils.isBlank(hash)) {
-            Files.copy(connection.getInputStream(), path, StandardCopyOption.REPLACE_EXISTING);
-            return;
+        long currentTime = System.currentTimeMillis();
+        if (entry != null && currentTime - entry.getChecked() < ttl) {
+            return false;
+        }
+        
+        Map<String, String> headers = new LinkedHashMap<>();
+        if (entry != null) {
+            if (StringUtils.isNotBlank(entry.getEtag())) {
+                headers.put("If-None-Match", entry.getEtag());
+            }
+            
+            if (StringUtils.isNotBlank(entry.getLastModified())) {
+                headers.put("If-Modified-Since", entry.getLastModified());
+            }
         }
         
-        String calculatedHash;
-        try (DigestInputStream inputStream = new DigestInputStream(connection.getInputStream(), HashUtils.sha1())) {
-            Files.copy(inputStream, path, StandardCopyOption.REPLACE_EXISTING);
+        try (Response response = execute(url, headers)) {
+            if (entry != null && response.getCode() == 304) {
+                writeCacheEntry(cachePath, new CacheEntry(entry.getUrl(), entry.getEtag(), entry.getLastModified(), currentTime));
+                return false;
+            }
+            
+            if (response.getCode() != 200) {
+                throw new IllegalStateException(String.format("Unexpected Response: %s", response.getCode()));
+            }
+            
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
             
-            calculatedHash = HashUtils.toString(inputStream.getMessageDigest());
+            Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+            MetricManager.DOWNLOADED_BYTES.inc(Files.copy(response.getInputStream(), temporaryPath, StandardCopyOption.REPLACE_EXISTING));
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+            writeCacheEntry(cachePath, new CacheEntry(
+                    url.toString(),
+                    response.getHeader("ETag"),
+                    response.getHeader("Last-Modified"),
+                    currentTime));
+            return true;
+        }
+    }
+    
+    public static <T> T deserializeJson(URL url, Class<T> type) throws IOException {
+        try (Response response = execute(url, Collections.emptyMap())) {
+            if (response.getCode() != 200) {
+                throw new IllegalStateException(String.format("Unexpected Response: %s", response.getCode()));
+            }
+            
+            Reader reader = new InputStreamReader(response.getInputStream(), StandardCharsets.UTF_8);
+            return Toolbox.GSON.fromJson(reader, type);
+        }
+    }
+    
+    public static Transport getTransport() {
+        if (transport == null) {
+            synchronized (WebUtils.class) {
+                if (transport == null) {
+                    Config config = Analysis.getInstance().getConfig();
+                    transport = new HttpTransport(
+                            (int) TimeUnit.SECONDS.toMillis(config.getConnectTimeout()),
+                            (int) TimeUnit.SECONDS.toMillis(config.getReadTimeout()));
+                }
+            }
         }
         
+        return transport;
+    }
+    
+    public static void setTransport(Transport transport) {
+        WebUtils.transport = transport;
+    }
+    
+    /**
+     * Executes a request whose body is read in full by the caller, connection failures and server errors are retried.
+     */
+    private static Response execute(URL url, Map<String, String> headers) throws IOException {
+        return new RetryTransport(getTransport(), getAttempts(), RETRY_BACKOFF).execute(url, headers);
+    }
+    
+    private static int getAttempts() {
+        return Math.max(Analysis.getInstance().getConfig().getRetries(), 1);
+    }
+    
+    /**
+     * Downloads the remaining bytes of {@code url} into {@code partPath}, resuming from any existing partial content.
+     *
+     * <p>{@link java.io.IOException IOException}s leave the partial file in place so the next attempt only
+     * transfers the missing bytes, any other failure discards it.</p>
+     */
+    private static void downloadPart(URL url, Path partPath, Path validatorPath, long length, String hash) throws IOException {
+        MessageDigest digest = StringUtils.isBlank(hash) ? null : HashUtils.sha1();
+        String validator = Files.exists(validatorPath) ? new String(Files.readAllBytes(validatorPath), StandardCharsets.UTF_8) : null;
+        long offset = Files.exists(partPath) ? Files.size(partPath) : 0;
+        
+        // Without a hash or validator there is no way to detect a changed resource, so start over
+        if ((length != -1 && offset > length) || (digest == null && StringUtils.isBlank(validator))) {
+            offset = 0;
+        }
+        
+        if (length == -1 || offset != length) {
+            Map<String, String> headers = new LinkedHashMap<>();
+            if (offset > 0) {
+                headers.put("Range", String.format("bytes=%s-", offset));
+                if (StringUtils.isNotBlank(validator)) {
+                    headers.put("If-Range", validator);
+                }
+            }
+            
+            try (Response response = getTransport().execute(url, headers)) {
+                if (response.getCode() == 416) {
+                    deletePart(partPath, validatorPath);
+                    throw new IOException("Requested Range Not Satisfiable");
+                }
+                
+                if (RetryTransport.isRetryable(response.getCode())) {
+                    throw new IOException(String.format("Unexpected Response: %s", response.getCode()));
+                }
+                
+                if (response.getCode() == 200) {
+                    offset = 0;
+                    writeValidator(response, validatorPath);
+                } else if (response.getCode() != 206 || offset == 0) {
+                    throw new IllegalStateException(String.format("Unexpected Response: %s", response.getCode()));
+                }
+                
+                long contentLength = response.getHeaderLong("Content-Length", -1);
+                if (length != -1 && contentLength != length - offset) {
+                    throw new IllegalStateException(String.format("Mismatched Size (got %s, expected %s)", contentLength, length - offset));
+                }
+                
+                if (digest != null && offset != 0) {
+                    HashUtils.update(digest, partPath);
+                }
+                
+                OpenOption option = offset == 0 ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND;
+                try (OutputStream outputStream = Files.newOutputStream(partPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, option)) {
+                    long transferred = copy(response.getInputStream(), outputStream, digest);
+                    
+                    // HttpURLConnection reports a truncated body as a regular end of stream
+                    if (contentLength != -1 && transferred != contentLength) {
+                        throw new IOException(String.format("Premature EOF (got %s, expected %s)", transferred, contentLength));
+                    }
+                }
+            }
+        } else if (digest != null) {
+            HashUtils.update(digest, partPath);
+        }
+        
+        if (digest == null) {
+            return;
+        }
+        
+        String calculatedHash = HashUtils.toString(digest);
         if (!calculatedHash.equalsIgnoreCase(hash)) {
-            Files.delete(path);
+            deletePart(partPath, validatorPath);
             throw new IllegalStateException(String.format("Mismatched Hash (got %s, expected %s)", calculatedHash, hash));
         }
     }
     
-    public static <T> T deserializeJson(URL url, Class<T> type) throws IOException {
-        HttpURLConnection connection = createConnection(url);
-        if (connection.getResponseCode() != 200) {
-            throw new IllegalStateException(String.format("Unexpected Response: %s", connection.getResponseCode()));
+    private static long copy(InputStream inputStream, OutputStream outputStream, MessageDigest digest) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long transferred = 0;
+        int read;
+        try {
+            while ((read = inputStream.read(buffer)) != -1) {
+                outputStream.write(buffer, 0, read);
+                if (digest != null) {
+                    digest.update(buffer, 0, read);
+                }
+                
+                transferred += read;
+            }
+        } finally {
+            // Bytes from an interrupted transfer are kept in the partial file, so they still count
+            MetricManager.DOWNLOADED_BYTES.inc(transferred);
         }
         
-        try (Reader reader = new InputStreamReader(connection.getInputStream())) {
-            return Toolbox.GSON.fromJson(reader, type);
+        return transferred;
+    }
+    
+    private static void writeValidator(Response response, Path path) throws IOException {
+        // If-Range only accepts strong entity tags
+        String validator = response.getHeader("ETag");
+        if (StringUtils.isBlank(validator) || validator.startsWith("W/")) {
+            validator = response.getHeader("Last-Modified");
+        }
+        
+        if (StringUtils.isBlank(validator)) {
+            Files.deleteIfExists(path);
+            return;
+        }
+        
+        Files.write(path, validator.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static CacheEntry readCacheEntry(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return Toolbox.GSON.fromJson(reader, CacheEntry.class);
+        } catch (Exception ex) {
+            Analysis.getInstance().getLogger().debug("Encountered an error while reading {}", path.getFileName(), ex);
+            return null;
+        }
+    }
+    
+    private static void writeCacheEntry(Path path, CacheEntry entry) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            Toolbox.GSON.toJson(entry, writer);
         }
     }
     
-    private static HttpURLConnection createConnection(URL url) throws IOException {
-        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-        connection.addRequestProperty("User-Agent", Analysis.USER_AGENT);
-        return connection;
+    private static void deletePart(Path partPath, Path validatorPath) throws IOException {
+        Files.deleteIfExists(partPath);
+        Files.deleteIfExists(validatorPath);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util.web;
+
+import io.github.lxgaming.analysis.common.Analysis;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * {@link Transport} backed by {@link java.net.HttpURLConnection HttpURLConnection}, connections are returned to the
+ * JDK keep-alive cache once a {@link Response} has been fully consumed and closed.
+ */
+public class HttpTransport implements Transport {
+    
+    private static final int DRAIN_LIMIT = 64 * 1024;
+    
+    private final int connectTimeout;
+    private final int readTimeout;
+    
+    /**
+     * Connections are reused through the JDK keep-alive cache, which is enabled by default and keeps up to
+     * {@code http.maxConnections} (default 5) idle connections per destination. Raise it with
+     * {@code -Dhttp.maxConnections} if more concurrent downloads per host should be kept alive.
+     */
+    public HttpTransport(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+    
+    @Override
+    public Response execute(URL url, Map<String, String> headers) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setUseCaches(false);
+        connection.addRequestProperty("User-Agent", Analysis.USER_AGENT);
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            connection.addRequestProperty(entry.getKey(), entry.getValue());
+        }
+        
+        return new HttpResponse(connection, connection.getResponseCode());
+    }
+    
+    private static class HttpResponse implements Response {
+        
+        private final HttpURLConnection connection;
+        private final int code;
+        private InputStream inputStream;
+        private volatile boolean failed;
+        
+        private HttpResponse(HttpURLConnection connection, int code) {
+            this.connection = connection;
+            this.code = code;
+        }
+        
+        @Override
+        public int getCode() {
+            return code;
+        }
+        
+        @Override
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                InputStream stream = code >= 400 ? connection.getErrorStream() : connection.getInputStream();
+                inputStream = stream != null ? new TrackingInputStream(stream) : new ByteArrayInputStream(new byte[0]);
+            }
+            
+            return inputStream;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            // A connection which failed mid-body is unusable, draining it could block for another read timeout
+            if (failed) {
+                connection.disconnect();
+                return;
+            }
+            
+            // Unread content prevents the connection from being reused
+            try (InputStream stream = getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int remaining = DRAIN_LIMIT;
+                int read;
+                while (remaining > 0 && (read = stream.read(buffer)) != -1) {
+                    remaining -= read;
+                }
+                
+                if (remaining <= 0) {
+                    connection.disconnect();
+                }
+            } catch (IOException ex) {
+                connection.disconnect();
+            }
+        }
+        
+        /**
+         * Records whether reading the body failed so {@link #close()} knows not to drain it.
+         */
+        private class TrackingInputStream extends FilterInputStream {
+            
+            private TrackingInputStream(InputStream in) {
+                super(in);
+            }
+            
+            @Override
+            public int read() throws IOException {
+                try {
+                    return super.read();
+                } catch (IOException ex) {
+                    failed = true;
+                    throw ex;
+                }
+            }
+            
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                try {
+                    return super.read(b, off, len);
+                } catch (IOException ex) {
+                    failed = true;
+                    throw ex;
+                }
+            }
+            
+            @Override
+            public long skip(long n) throws IOException {
+                try {
+                    return super.skip(n);
+                } catch (IOException ex) {
+                    failed = true;
+                    throw ex;
+                }
+            }
+        }
+    }
+}
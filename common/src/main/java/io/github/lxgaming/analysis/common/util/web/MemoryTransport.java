@@ -0,0 +1,115 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util.web;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process {@link Transport} serving registered resources, supports conditional and range requests.
+ */
+public class MemoryTransport implements Transport {
+    
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+    
+    public void register(String url, byte[] bytes, String etag) {
+        resources.put(url, new Resource(bytes, etag));
+    }
+    
+    public void unregister(String url) {
+        resources.remove(url);
+    }
+    
+    @Override
+    public Response execute(URL url, Map<String, String> headers) {
+        Map<String, String> requestHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        requestHeaders.putAll(headers);
+        
+        Resource resource = resources.get(url.toString());
+        if (resource == null) {
+            return new MemoryResponse(404, null, new byte[0], 0);
+        }
+        
+        if (resource.etag != null && resource.etag.equals(requestHeaders.get("If-None-Match"))) {
+            return new MemoryResponse(304, resource.etag, new byte[0], 0);
+        }
+        
+        String range = requestHeaders.get("Range");
+        String ifRange = requestHeaders.get("If-Range");
+        if (range != null && range.startsWith("bytes=") && range.endsWith("-") && (ifRange == null || ifRange.equals(resource.etag))) {
+            int offset = Integer.parseInt(range.substring(6, range.length() - 1));
+            if (offset >= resource.bytes.length) {
+                return new MemoryResponse(416, resource.etag, new byte[0], 0);
+            }
+            
+            return new MemoryResponse(206, resource.etag, resource.bytes, offset);
+        }
+        
+        return new MemoryResponse(200, resource.etag, resource.bytes, 0);
+    }
+    
+    private static class Resource {
+        
+        private final byte[] bytes;
+        private final String etag;
+        
+        private Resource(byte[] bytes, String etag) {
+            this.bytes = bytes;
+            this.etag = etag;
+        }
+    }
+    
+    private static class MemoryResponse implements Response {
+        
+        private final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        private final int code;
+        private final InputStream inputStream;
+        
+        private MemoryResponse(int code, String etag, byte[] bytes, int offset) {
+            this.code = code;
+            this.inputStream = new ByteArrayInputStream(bytes, offset, bytes.length - offset);
+            this.headers.put("Content-Length", String.valueOf(bytes.length - offset));
+            if (etag != null) {
+                this.headers.put("ETag", etag);
+            }
+        }
+        
+        @Override
+        public int getCode() {
+            return code;
+        }
+        
+        @Override
+        public String getHeader(String name) {
+            return headers.get(name);
+        }
+        
+        @Override
+        public InputStream getInputStream() {
+            return inputStream;
+        }
+        
+        @Override
+        public void close() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util.web;
+
+import io.github.lxgaming.analysis.common.Analysis;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URL;
+import java.util.Map;
+
+/**
+ * Retries requests which fail to connect or respond with a server error, waiting exponentially longer between attempts.
+ */
+public class RetryTransport implements Transport {
+    
+    private final Transport transport;
+    private final int attempts;
+    private final long backoff;
+    
+    public RetryTransport(Transport transport, int attempts, long backoff) {
+        this.transport = transport;
+        this.attempts = Math.max(attempts, 1);
+        this.backoff = backoff;
+    }
+    
+    @Override
+    public Response execute(URL url, Map<String, String> headers) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Response response = transport.execute(url, headers);
+                if (attempt >= attempts || !isRetryable(response.getCode())) {
+                    return response;
+                }
+                
+                response.close();
+                Analysis.getInstance().getLogger().debug("Retrying {} ({}/{}): Response {}", url, attempt, attempts, response.getCode());
+            } catch (IOException ex) {
+                if (attempt >= attempts) {
+                    throw ex;
+                }
+                
+                Analysis.getInstance().getLogger().debug("Retrying {} ({}/{}): {}", url, attempt, attempts, ex.getMessage());
+            }
+            
+            sleep(url, backoff, attempt);
+        }
+    }
+    
+    /**
+     * Sleeps for the exponential backoff which follows the provided failed attempt.
+     */
+    public static void sleep(URL url, long backoff, int attempt) throws InterruptedIOException {
+        try {
+            Thread.sleep(backoff << (attempt - 1));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(String.format("Interrupted while retrying %s", url));
+        }
+    }
+    
+    /**
+     * @return {@code true} if a request which received the provided response code may succeed if attempted again.
+     */
+    public static boolean isRetryable(int code) {
+        return code >= 500 || code == 429;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.lxgaming.analysis.common.util.Toolbox;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP stand-in serving a single resource with Range and If-Range support, it can be told to drop connections
+ * part way through a body or to stall before sending it.
+ */
+public class TestHttpServer implements Closeable {
+    
+    private final HttpServer httpServer;
+    private final List<Request> requests;
+    private final AtomicInteger drops;
+    private volatile byte[] bytes;
+    private volatile String etag;
+    private volatile int dropAfter;
+    private volatile int status;
+    private volatile long stall;
+    
+    private TestHttpServer() throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.requests = Collections.synchronizedList(new ArrayList<>());
+        this.drops = new AtomicInteger();
+        this.bytes = new byte[0];
+        httpServer.createContext("/", this::handle);
+        httpServer.setExecutor(Executors.newCachedThreadPool(Toolbox.newThreadFactory("Test Server #%d")));
+        httpServer.start();
+    }
+    
+    public static TestHttpServer start() throws IOException {
+        return new TestHttpServer();
+    }
+    
+    public URL getUrl() throws MalformedURLException {
+        return new URL(String.format("http://%s:%s/resource", httpServer.getAddress().getHostString(), httpServer.getAddress().getPort()));
+    }
+    
+    public void setResource(byte[] bytes, String etag) {
+        this.bytes = bytes;
+        this.etag = etag;
+    }
+    
+    /**
+     * Closes the next {@code count} connections after {@code after} bytes of the body have been sent.
+     */
+    public void dropConnections(int count, int after) {
+        this.dropAfter = after;
+        this.drops.set(count);
+    }
+    
+    /**
+     * Responds to every request with the provided status and an empty body, or serves the resource if {@code 0}.
+     */
+    public void setStatus(int status) {
+        this.status = status;
+    }
+    
+    /**
+     * Waits for the provided number of milliseconds after sending the headers before sending the body.
+     */
+    public void setStall(long stall) {
+        this.stall = stall;
+    }
+    
+    public List<Request> getRequests() {
+        synchronized (requests) {
+            return new ArrayList<>(requests);
+        }
+    }
+    
+    @Override
+    public void close() {
+        httpServer.stop(0);
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        byte[] bytes = this.bytes;
+        String etag = this.etag;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        
+        int code;
+        int offset = 0;
+        if (status != 0) {
+            code = status;
+        } else if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            offset = Integer.parseInt(range.substring("bytes=".length(), range.length() - 1));
+            code = offset < bytes.length ? 206 : 416;
+        } else {
+            code = 200;
+        }
+        
+        requests.add(new Request(range, ifRange, code, exchange.getRemoteAddress().getPort()));
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+        }
+        
+        if (code != 200 && code != 206) {
+            exchange.sendResponseHeaders(code, -1);
+            exchange.close();
+            return;
+        }
+        
+        if (code == 206) {
+            exchange.getResponseHeaders().set("Content-Range", String.format("bytes %s-%s/%s", offset, bytes.length - 1, bytes.length));
+        }
+        
+        int length = bytes.length - offset;
+        exchange.sendResponseHeaders(code, length);
+        OutputStream outputStream = exchange.getResponseBody();
+        try {
+            if (stall > 0) {
+                outputStream.flush();
+                Thread.sleep(stall);
+            }
+            
+            if (drops.getAndDecrement() > 0) {
+                outputStream.write(bytes, offset, Math.min(dropAfter, length));
+                outputStream.flush();
+                
+                // Closing with fewer bytes than advertised closes the underlying connection
+                exchange.close();
+                return;
+            }
+            
+            outputStream.write(bytes, offset, length);
+            exchange.close();
+        } catch (IOException ex) {
+            exchange.close();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+        }
+    }
+    
+    public static class Request {
+        
+        private final String range;
+        private final String ifRange;
+        private final int code;
+        private final int remotePort;
+        
+        private Request(String range, String ifRange, int code, int remotePort) {
+            this.range = range;
+            this.ifRange = ifRange;
+            this.code = code;
+            this.remotePort = remotePort;
+        }
+        
+        public String getRange() {
+            return range;
+        }
+        
+        public String getIfRange() {
+            return ifRange;
+        }
+        
+        public int getCode() {
+            return code;
+        }
+        
+        /**
+         * Requests sent over the same connection share a remote port.
+         */
+        public int getRemotePort() {
+            return remotePort;
+        }
+    }
+}
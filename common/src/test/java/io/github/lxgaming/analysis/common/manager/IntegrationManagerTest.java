@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.manager;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import io.github.lxgaming.analysis.common.integration.Integration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class IntegrationManagerTest {
+    
+    private static final AtomicInteger EXECUTIONS = new AtomicInteger();
+    
+    @BeforeEach
+    public void setUp() {
+        new Analysis(new TestConfig());
+        EXECUTIONS.set(0);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        IntegrationManager.shutdown();
+    }
+    
+    @Test
+    public void skipsDependentsOfFailedIntegration() {
+        IntegrationManager.registerIntegration(FailingIntegration.class);
+        IntegrationManager.registerIntegration(DependentIntegration.class);
+        IntegrationManager.registerIntegration(IndependentIntegration.class);
+        
+        IntegrationManager.execute();
+        
+        // Only the independent integration runs, the dependent is skipped rather than run against missing state
+        assertEquals(1, EXECUTIONS.get());
+    }
+    
+    public static class FailingIntegration extends Integration {
+        
+        @Override
+        public boolean prepare() {
+            return true;
+        }
+        
+        @Override
+        public void execute() {
+            throw new IllegalStateException("Deliberate failure");
+        }
+        
+        @Override
+        public void shutdown() {
+            // no-op
+        }
+    }
+    
+    public static class DependentIntegration extends Integration {
+        
+        @Override
+        public boolean prepare() {
+            addDependency(FailingIntegration.class);
+            return true;
+        }
+        
+        @Override
+        public void execute() {
+            EXECUTIONS.incrementAndGet();
+        }
+        
+        @Override
+        public void shutdown() {
+            // no-op
+        }
+    }
+    
+    public static class IndependentIntegration extends Integration {
+        
+        @Override
+        public boolean prepare() {
+            return true;
+        }
+        
+        @Override
+        public void execute() {
+            EXECUTIONS.incrementAndGet();
+        }
+        
+        @Override
+        public void shutdown() {
+            // no-op
+        }
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.manager;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import io.github.lxgaming.analysis.common.query.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryManagerTest {
+    
+    private static final AtomicInteger EXECUTIONS = new AtomicInteger();
+    private static volatile CountDownLatch release;
+    
+    private TestConfig config;
+    
+    @BeforeEach
+    public void setUp() {
+        this.config = new TestConfig();
+        config.setThreads(1);
+        config.setQueryTimeout(1);
+        new Analysis(config);
+        EXECUTIONS.set(0);
+        release = new CountDownLatch(1);
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        QueryManager.shutdown();
+    }
+    
+    @Test
+    public void hungQueryDoesNotStarveQueue() {
+        QueryManager.registerQuery(HungQuery.class);
+        QueryManager.registerQuery(CountingQuery.class);
+        QueryManager.registerQuery(SerialQuery.class);
+        
+        long startTime = System.nanoTime();
+        QueryManager.execute();
+        
+        // The hung query holds the only worker thread and ignores the interrupt, the others still run after the timeout
+        assertEquals(2, EXECUTIONS.get());
+        assertTrue(System.nanoTime() - startTime < TimeUnit.SECONDS.toNanos(5), "Queued queries waited for the hung query");
+    }
+    
+    public static class HungQuery extends Query {
+        
+        @Override
+        public boolean prepare() {
+            addAlias("hung");
+            setThreadSafe(true);
+            return true;
+        }
+        
+        @Override
+        public void execute() {
+            while (true) {
+                try {
+                    if (release.await(10, TimeUnit.SECONDS)) {
+                        return;
+                    }
+                } catch (InterruptedException ex) {
+                    // Deliberately ignored
+                }
+            }
+        }
+    }
+    
+    public static class CountingQuery extends Query {
+        
+        @Override
+        public boolean prepare() {
+            addAlias("counting");
+            setThreadSafe(true);
+            return true;
+        }
+        
+        @Override
+        public void execute() {
+            EXECUTIONS.incrementAndGet();
+        }
+    }
+    
+    public static class SerialQuery extends Query {
+        
+        @Override
+        public boolean prepare() {
+            addAlias("serial");
+            return true;
+        }
+        
+        @Override
+        public void execute() {
+            EXECUTIONS.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.query;
+
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.ClassNode;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Runs {@link ProtocolQuery.StateReader} against generated classes shaped like the 1.14.4 and 1.15+
+ * {@code ConnectionProtocol}.
+ */
+public class ProtocolQueryTest {
+    
+    private static final String CONNECTION_PROTOCOL = "net/minecraft/network/ConnectionProtocol";
+    private static final String PACKET_FLOW = "net/minecraft/network/protocol/PacketFlow";
+    private static final String PACKET_SET = CONNECTION_PROTOCOL + "$PacketSet";
+    private static final String PROTOCOL_BUILDER = CONNECTION_PROTOCOL + "$ProtocolBuilder";
+    private static final String[] STATES = {"HANDSHAKING", "PLAY", "STATUS", "LOGIN"};
+    
+    private final Map<String, byte[]> classes = new HashMap<>();
+    
+    @Test
+    public void readsPacketFlows() throws Exception {
+        classes.put(PACKET_FLOW, createPacketFlow());
+        assertEquals(Arrays.asList("SERVERBOUND", "CLIENTBOUND"), ProtocolQuery.getEnumConstants(readClass(PACKET_FLOW)));
+    }
+    
+    @Test
+    public void readsFlowRegistrations() throws Exception {
+        classes.put(PACKET_SET, createClass(PACKET_SET, "java/lang/Object", 0));
+        ClassWriter classWriter = createClassWriter(CONNECTION_PROTOCOL, "java/lang/Enum", Opcodes.ACC_ENUM);
+        MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        methodVisitor.visitCode();
+        for (int index = 0; index < STATES.length; index++) {
+            methodVisitor.visitTypeInsn(Opcodes.NEW, CONNECTION_PROTOCOL);
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitLdcInsn(STATES[index]);
+            methodVisitor.visitIntInsn(Opcodes.BIPUSH, index);
+            methodVisitor.visitIntInsn(Opcodes.BIPUSH, index - 1);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESTATIC, CONNECTION_PROTOCOL, "protocol", "()L" + PROTOCOL_BUILDER + ";", false);
+            for (Map.Entry<String, List<String>> entry : getPackets(STATES[index]).entrySet()) {
+                methodVisitor.visitFieldInsn(Opcodes.GETSTATIC, PACKET_FLOW, entry.getKey(), "L" + PACKET_FLOW + ";");
+                methodVisitor.visitTypeInsn(Opcodes.NEW, PACKET_SET);
+                methodVisitor.visitInsn(Opcodes.DUP);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, PACKET_SET, "<init>", "()V", false);
+                for (String packet : entry.getValue()) {
+                    methodVisitor.visitLdcInsn(Type.getObjectType(packet.replace('.', '/')));
+                    methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PACKET_SET, "addPacket", "(Ljava/lang/Class;)L" + PACKET_SET + ";", false);
+                }
+                
+                methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PROTOCOL_BUILDER, "addFlow", "(L" + PACKET_FLOW + ";L" + PACKET_SET + ";)L" + PROTOCOL_BUILDER + ";", false);
+            }
+            
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, CONNECTION_PROTOCOL, "<init>", "(Ljava/lang/String;IIL" + PROTOCOL_BUILDER + ";)V", false);
+            methodVisitor.visitFieldInsn(Opcodes.PUTSTATIC, CONNECTION_PROTOCOL, STATES[index], "L" + CONNECTION_PROTOCOL + ";");
+        }
+        
+        putValues(methodVisitor);
+        classes.put(CONNECTION_PROTOCOL, classWriter.toByteArray());
+        
+        assertStates(read());
+    }
+    
+    @Test
+    public void readsAnonymousConstantBodies() throws Exception {
+        ClassWriter classWriter = createClassWriter(CONNECTION_PROTOCOL, "java/lang/Enum", Opcodes.ACC_ENUM | Opcodes.ACC_ABSTRACT);
+        MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        methodVisitor.visitCode();
+        for (int index = 0; index < STATES.length; index++) {
+            String bodyName = CONNECTION_PROTOCOL + "$" + (index + 1);
+            classes.put(bodyName, createConstantBody(bodyName, getPackets(STATES[index])));
+            
+            methodVisitor.visitTypeInsn(Opcodes.NEW, bodyName);
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitLdcInsn(STATES[index]);
+            methodVisitor.visitIntInsn(Opcodes.BIPUSH, index);
+            methodVisitor.visitIntInsn(Opcodes.BIPUSH, index - 1);
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, bodyName, "<init>", "(Ljava/lang/String;II)V", false);
+            methodVisitor.visitFieldInsn(Opcodes.PUTSTATIC, CONNECTION_PROTOCOL, STATES[index], "L" + CONNECTION_PROTOCOL + ";");
+        }
+        
+        putValues(methodVisitor);
+        classes.put(CONNECTION_PROTOCOL, classWriter.toByteArray());
+        
+        assertStates(read());
+    }
+    
+    @Test
+    public void rejectsUnresolvedRegistration() throws Exception {
+        ClassWriter classWriter = createClassWriter(CONNECTION_PROTOCOL, "java/lang/Enum", Opcodes.ACC_ENUM);
+        MethodVisitor methodVisitor = classWriter.visitMethod(Opcodes.ACC_STATIC, "<clinit>", "()V", null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PACKET_SET, "addPacket", "(Ljava/lang/Class;)L" + PACKET_SET + ";", false);
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+        classes.put(CONNECTION_PROTOCOL, classWriter.toByteArray());
+        
+        assertThrows(IllegalStateException.class, this::read);
+    }
+    
+    private Map<String, Map<String, List<String>>> read() throws Exception {
+        ProtocolQuery.StateReader stateReader = new ProtocolQuery.StateReader(name -> readClass(name.replace('.', '/')));
+        stateReader.read(readClass(CONNECTION_PROTOCOL));
+        return stateReader.getStates();
+    }
+    
+    private ClassNode readClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.get(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        
+        ClassNode classNode = new ClassNode();
+        new ClassReader(bytes).accept(classNode, ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        return classNode;
+    }
+    
+    private static void assertStates(Map<String, Map<String, List<String>>> states) {
+        assertEquals(STATES.length, states.size());
+        for (String state : STATES) {
+            assertEquals(getPackets(state), states.get(state), state);
+        }
+    }
+    
+    private static Map<String, List<String>> getPackets(String state) {
+        Map<String, List<String>> packets = new LinkedHashMap<>();
+        if (state.equals("HANDSHAKING")) {
+            packets.put("SERVERBOUND", Arrays.asList(getPacket("handshake", "ClientIntentionPacket")));
+        } else if (state.equals("PLAY")) {
+            packets.put("CLIENTBOUND", Arrays.asList(getPacket("game", "ClientboundAddEntityPacket"), getPacket("game", "ClientboundAddMobPacket")));
+            packets.put("SERVERBOUND", Arrays.asList(getPacket("game", "ServerboundAcceptTeleportationPacket"), getPacket("game", "ServerboundBlockEntityTagQuery")));
+        } else if (state.equals("STATUS")) {
+            packets.put("SERVERBOUND", Arrays.asList(getPacket("status", "ServerboundStatusRequestPacket"), getPacket("status", "ServerboundPingRequestPacket")));
+            packets.put("CLIENTBOUND", Arrays.asList(getPacket("status", "ClientboundStatusResponsePacket"), getPacket("status", "ClientboundPongResponsePacket")));
+        } else if (state.equals("LOGIN")) {
+            packets.put("CLIENTBOUND", Arrays.asList(getPacket("login", "ClientboundLoginDisconnectPacket")));
+            packets.put("SERVERBOUND", Arrays.asList(getPacket("login", "ServerboundHelloPacket")));
+        }
+        
+        return packets;
+    }
+    
+    private static String getPacket(String protocol, String name) {
+        return String.format("net.minecraft.network.protocol.%s.%s", protocol, name);
+    }
+    
+    private static byte[] createPacketFlow() {
+        ClassWriter classWriter = createClassWriter(PACKET_FLOW, "java/lang/Enum", Opcodes.ACC_ENUM);
+        for (String flow : new String[]{"SERVERBOUND", "CLIENTBOUND"}) {
+            classWriter.visitField(Opcodes.ACC_PUBLIC | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_ENUM, flow, "L" + PACKET_FLOW + ";", null, null).visitEnd();
+        }
+        
+        classWriter.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL | Opcodes.ACC_SYNTHETIC, "$VALUES", "[L" + PACKET_FLOW + ";", null, null).visitEnd();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+    
+    /**
+     * Creates a 1.14.4 style anonymous enum constant body which registers its packets from its constructor.
+     */
+    private static byte[] createConstantBody(String name, Map<String, List<String>> packets) {
+        ClassWriter classWriter = createClassWriter(name, CONNECTION_PROTOCOL, Opcodes.ACC_ENUM);
+        MethodVisitor methodVisitor = classWriter.visitMethod(0, "<init>", "(Ljava/lang/String;II)V", null, null);
+        methodVisitor.visitCode();
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+        methodVisitor.visitVarInsn(Opcodes.ALOAD, 1);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, 2);
+        methodVisitor.visitVarInsn(Opcodes.ILOAD, 3);
+        methodVisitor.visitInsn(Opcodes.ACONST_NULL);
+        methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, CONNECTION_PROTOCOL, "<init>", "(Ljava/lang/String;IIL" + CONNECTION_PROTOCOL + "$1;)V", false);
+        for (Map.Entry<String, List<String>> entry : packets.entrySet()) {
+            for (String packet : entry.getValue()) {
+                methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+                methodVisitor.visitFieldInsn(Opcodes.GETSTATIC, PACKET_FLOW, entry.getKey(), "L" + PACKET_FLOW + ";");
+                methodVisitor.visitLdcInsn(Type.getObjectType(packet.replace('.', '/')));
+                methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, name, "addPacket", "(L" + PACKET_FLOW + ";Ljava/lang/Class;)L" + CONNECTION_PROTOCOL + ";", false);
+                methodVisitor.visitInsn(Opcodes.POP);
+            }
+        }
+        
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+    
+    private static byte[] createClass(String name, String superName, int access) {
+        ClassWriter classWriter = createClassWriter(name, superName, access);
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+    
+    private static ClassWriter createClassWriter(String name, String superName, int access) {
+        ClassWriter classWriter = new ClassWriter(0);
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | access, name, null, superName, null);
+        return classWriter;
+    }
+    
+    /**
+     * Assigns the synthetic {@code $VALUES} array, which must not be mistaken for a state.
+     */
+    private static void putValues(MethodVisitor methodVisitor) {
+        methodVisitor.visitInsn(Opcodes.ICONST_0);
+        methodVisitor.visitTypeInsn(Opcodes.ANEWARRAY, CONNECTION_PROTOCOL);
+        methodVisitor.visitFieldInsn(Opcodes.PUTSTATIC, CONNECTION_PROTOCOL, "$VALUES", "[L" + CONNECTION_PROTOCOL + ";");
+        methodVisitor.visitInsn(Opcodes.RETURN);
+        methodVisitor.visitMaxs(0, 0);
+        methodVisitor.visitEnd();
+    }
+}
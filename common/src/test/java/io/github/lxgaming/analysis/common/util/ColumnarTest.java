@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.entity.ColumnType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ColumnarTest {
+    
+    private Path path;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.path = Files.createTempFile("columnar", ".col");
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+    
+    @Test
+    public void readsWrittenTable() throws IOException {
+        ColumnarWriter columnarWriter = new ColumnarWriter()
+                .addColumn("id", ColumnType.INT)
+                .addColumn("name", ColumnType.STRING);
+        columnarWriter.addRow(0, "zebra");
+        columnarWriter.addRow(1, null);
+        columnarWriter.addRow(2, "éclair");
+        columnarWriter.addRow(3, "apple");
+        columnarWriter.write(path);
+        
+        ColumnarReader columnarReader = ColumnarReader.open(path);
+        assertEquals(4, columnarReader.getRowCount());
+        assertEquals(2, columnarReader.getColumnCount());
+        assertEquals("name", columnarReader.getColumnName(1));
+        assertEquals(ColumnType.STRING, columnarReader.getColumnType(columnarReader.getColumnIndex("name")));
+        assertEquals(2, columnarReader.getInt(2, 0));
+        assertEquals("zebra", columnarReader.getString(0, 1));
+        assertNull(columnarReader.getString(1, 1));
+        assertEquals("éclair", columnarReader.getString(2, 1));
+        assertEquals(columnarReader.getStringIndex(3, 1), columnarReader.indexOf("apple"));
+        assertEquals(-1, columnarReader.indexOf("banana"));
+        
+        // The dictionary is sorted by UTF-8 bytes, which places non-ASCII strings last
+        for (int index = 1; index < columnarReader.getDictionarySize(); index++) {
+            assertTrue(columnarReader.getDictionaryString(index - 1).compareTo(columnarReader.getDictionaryString(index)) < 0);
+        }
+    }
+}
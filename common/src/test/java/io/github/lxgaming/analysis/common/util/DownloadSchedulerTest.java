@@ -0,0 +1,82 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DownloadSchedulerTest {
+    
+    @BeforeEach
+    public void setUp() {
+        new Analysis(new TestConfig());
+    }
+    
+    @Test
+    public void queuedHostDoesNotBlockOtherHosts() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        try (DownloadScheduler scheduler = new DownloadScheduler(2, 1)) {
+            Future<Boolean> first = scheduler.submit("https://a.example/1", () -> release.await(5, TimeUnit.SECONDS));
+            Future<Boolean> second = scheduler.submit("https://a.example/2", () -> true);
+            
+            // The second download for the same host waits for a connection without taking the remaining thread
+            Future<Boolean> other = scheduler.submit("https://b.example/1", () -> true);
+            assertTrue(other.get(1, TimeUnit.SECONDS));
+            assertFalse(second.isDone());
+            
+            release.countDown();
+            assertTrue(first.get(1, TimeUnit.SECONDS));
+            assertTrue(second.get(1, TimeUnit.SECONDS));
+        }
+    }
+    
+    @Test
+    public void closeWaitsForRunningDownloads() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean finished = new AtomicBoolean();
+        Future<Boolean> queued;
+        try (DownloadScheduler scheduler = new DownloadScheduler(1, 1)) {
+            scheduler.submit("https://a.example/1", () -> {
+                started.countDown();
+                try {
+                    Thread.sleep(5000);
+                } finally {
+                    Thread.sleep(200);
+                    finished.set(true);
+                }
+                
+                return true;
+            });
+            queued = scheduler.submit("https://a.example/2", () -> true);
+            assertTrue(started.await(1, TimeUnit.SECONDS));
+        }
+        
+        assertTrue(finished.get(), "Close returned before the running download finished");
+        assertTrue(queued.isCancelled());
+    }
+}
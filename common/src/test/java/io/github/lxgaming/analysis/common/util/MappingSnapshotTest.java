@@ -0,0 +1,75 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class MappingSnapshotTest {
+    
+    private Path path;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.path = Files.createTempFile("mapping", ".snapshot");
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+    
+    @Test
+    public void remapsWrittenMappings() throws IOException {
+        MappingSnapshot.Builder builder = new MappingSnapshot.Builder();
+        builder.addClass("b", "net/minecraft/world/entity/Entity")
+                .addField("a", "level")
+                .addMethod("a", "()V", "tick")
+                .addMethod("a", "(I)V", "setAge");
+        builder.addClass("a", "net/minecraft/server/MinecraftServer")
+                .addField("a", "running");
+        builder.addClass("c", null);
+        builder.write(path);
+        
+        MappingSnapshot snapshot = MappingSnapshot.open(path);
+        assertEquals(3, snapshot.getClassCount());
+        assertEquals(2, snapshot.getFieldCount());
+        assertEquals(2, snapshot.getMethodCount());
+        
+        MappingSnapshot.ClassMapping classMapping = snapshot.getClass("b");
+        assertNotNull(classMapping);
+        assertEquals("net/minecraft/world/entity/Entity", classMapping.getMapped());
+        assertEquals("level", classMapping.remapField("a"));
+        assertEquals("tick", classMapping.remapMethod("a", "()V"));
+        assertEquals("setAge", classMapping.remapMethod("a", "(I)V"));
+        assertNull(classMapping.remapMethod("a", "(J)V"));
+        
+        assertEquals("running", snapshot.getClass("a").remapField("a"));
+        assertNull(snapshot.getClass("c").getMapped());
+        assertNull(snapshot.getClass("d"));
+    }
+}
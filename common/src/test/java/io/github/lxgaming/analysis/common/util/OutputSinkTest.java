@@ -0,0 +1,112 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import com.google.gson.stream.JsonWriter;
+import io.github.lxgaming.analysis.common.entity.OutputCompression;
+import io.github.lxgaming.analysis.common.entity.OutputFormat;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class OutputSinkTest {
+    
+    private Path path;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.path = Files.createTempFile("output", ".json");
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(path);
+    }
+    
+    @Test
+    public void writesEmptyArray() throws IOException {
+        OutputSink.open(path, OutputFormat.JSON, OutputCompression.NONE, true).close();
+        assertEquals("[]", read());
+    }
+    
+    @Test
+    public void writesRecordsAsArray() throws IOException {
+        try (OutputSink sink = OutputSink.open(path, OutputFormat.JSON, OutputCompression.NONE, true)) {
+            sink.writeRecord(Collections.singletonMap("name", "a"));
+            sink.writeRecord(Collections.singletonMap("name", "b"));
+        }
+        
+        assertEquals("[{\"name\":\"a\"},{\"name\":\"b\"}]", read());
+    }
+    
+    @Test
+    public void writesKeyedRecordsAsObject() throws IOException {
+        try (OutputSink sink = OutputSink.open(path, OutputFormat.JSON, OutputCompression.NONE, true)) {
+            sink.writeRecord("a", 1);
+            sink.writeRecord("b", 2);
+        }
+        
+        assertEquals("{\"a\":1,\"b\":2}", read());
+    }
+    
+    @Test
+    public void writesRecordsAsLines() throws IOException {
+        try (OutputSink sink = OutputSink.open(path, OutputFormat.NDJSON, OutputCompression.NONE, true)) {
+            sink.writeRecord("a", 1);
+            sink.writeRecord("b", 2);
+        }
+        
+        assertEquals("1\n2\n", read());
+    }
+    
+    @Test
+    public void closesAfterUnfinishedRecord() throws IOException {
+        OutputSink sink = OutputSink.open(path, OutputFormat.JSON, OutputCompression.NONE, true);
+        sink.writeRecord(Collections.singletonMap("name", "a"));
+        JsonWriter jsonWriter = sink.beginRecord();
+        jsonWriter.beginObject();
+        jsonWriter.name("name");
+        
+        // The unfinished record is abandoned, but everything written so far is flushed and the stream is closed
+        sink.close();
+        assertEquals("[{\"name\":\"a\"},{", read());
+    }
+    
+    @Test
+    public void rejectsMixedRecords() throws IOException {
+        try (OutputSink sink = OutputSink.open(path, OutputFormat.JSON, OutputCompression.NONE, true)) {
+            sink.writeRecord("a", 1);
+            assertThrows(IllegalStateException.class, () -> sink.writeRecord(2));
+        }
+        
+        assertEquals("{\"a\":1}", read());
+    }
+    
+    private String read() throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
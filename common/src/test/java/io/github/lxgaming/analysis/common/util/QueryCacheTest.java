@@ -0,0 +1,86 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class QueryCacheTest {
+    
+    private Path directory;
+    private Path output;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        new Analysis(new TestConfig());
+        this.directory = Files.createTempDirectory("querycache");
+        this.output = directory.resolve("server-protocol.json");
+        Files.write(output, new byte[]{'[', ']'});
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) stream::iterator) {
+                Files.delete(file);
+            }
+        }
+        
+        Files.delete(directory);
+    }
+    
+    @Test
+    public void reusesRecordedOutputs() throws IOException {
+        QueryCache queryCache = new QueryCache(directory.resolve("queries.json"));
+        queryCache.record("query", "fingerprint", Collections.singleton(output));
+        assertTrue(queryCache.isCached("query", "fingerprint"));
+        assertFalse(queryCache.isCached("query", "other"));
+        
+        queryCache.save();
+        QueryCache loadedCache = new QueryCache(directory.resolve("queries.json"));
+        loadedCache.load();
+        assertTrue(loadedCache.isCached("query", "fingerprint"));
+    }
+    
+    @Test
+    public void rejectsChangedOutputs() throws IOException {
+        QueryCache queryCache = new QueryCache(directory.resolve("queries.json"));
+        queryCache.record("query", "fingerprint", Collections.singleton(output));
+        Files.write(output, new byte[]{'[', '1', ']'});
+        assertFalse(queryCache.isCached("query", "fingerprint"));
+    }
+    
+    @Test
+    public void rejectsEntryWithoutOutputs() throws IOException {
+        QueryCache queryCache = new QueryCache(directory.resolve("queries.json"));
+        queryCache.record("query", "fingerprint", Collections.emptySet());
+        assertFalse(queryCache.isCached("query", "fingerprint"));
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.github.lxgaming.analysis.common.util;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import io.github.lxgaming.analysis.common.TestHttpServer;
+import io.github.lxgaming.analysis.common.util.web.HttpTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WebUtilsTest {
+    
+    private static final int LENGTH = 256 * 1024;
+    private static final int DROP_AFTER = 64 * 1024;
+    private static final String ETAG = "\"v1\"";
+    
+    private TestHttpServer server;
+    private Path directory;
+    private Path path;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        new Analysis(new TestConfig());
+        WebUtils.setTransport(new HttpTransport(5000, 5000));
+        this.server = TestHttpServer.start();
+        this.directory = Files.createTempDirectory("webutils");
+        this.path = directory.resolve("artifact.jar");
+    }
+    
+    @AfterEach
+    public void tearDown() throws IOException {
+        WebUtils.setTransport(null);
+        server.close();
+        try (Stream<Path> stream = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) stream::iterator) {
+                Files.delete(file);
+            }
+        }
+        
+        Files.delete(directory);
+    }
+    
+    @Test
+    public void resumesAfterDroppedConnection() throws IOException {
+        byte[] bytes = createBytes(1);
+        server.setResource(bytes, ETAG);
+        server.dropConnections(1, DROP_AFTER);
+        
+        WebUtils.downloadFile(server.getUrl(), path, bytes.length, sha1(bytes));
+        
+        assertArrayEquals(bytes, Files.readAllBytes(path));
+        List<TestHttpServer.Request> requests = server.getRequests();
+        assertEquals(2, requests.size());
+        assertNull(requests.get(0).getRange());
+        assertEquals(String.format("bytes=%s-", DROP_AFTER), requests.get(1).getRange());
+        assertEquals(ETAG, requests.get(1).getIfRange());
+        assertEquals(206, requests.get(1).getCode());
+        assertPartDeleted();
+    }
+    
+    @Test
+    public void restartsWhenResourceChanged() throws IOException {
+        byte[] bytes = createBytes(1);
+        server.setResource(bytes, ETAG);
+        server.dropConnections(Integer.MAX_VALUE, DROP_AFTER);
+        assertThrows(IOException.class, () -> WebUtils.downloadFile(server.getUrl(), path, bytes.length, sha1(bytes)));
+        
+        // The validator no longer matches, so the server answers the range request with the whole resource
+        byte[] changedBytes = createBytes(2);
+        server.setResource(changedBytes, "\"v2\"");
+        server.dropConnections(0, 0);
+        WebUtils.downloadFile(server.getUrl(), path, changedBytes.length, sha1(changedBytes));
+        
+        assertArrayEquals(changedBytes, Files.readAllBytes(path));
+        List<TestHttpServer.Request> requests = server.getRequests();
+        TestHttpServer.Request request = requests.get(requests.size() - 1);
+        assertTrue(request.getRange() != null);
+        assertEquals(ETAG, request.getIfRange());
+        assertEquals(200, request.getCode());
+        assertPartDeleted();
+    }
+    
+    @Test
+    public void restartsAfterRangeNotSatisfiable() throws IOException {
+        byte[] bytes = createBytes(1);
+        server.setResource(bytes, ETAG);
+        
+        // A part file longer than the resource, left behind with a matching validator
+        Files.write(path.resolveSibling(path.getFileName() + ".part"), createBytes(3, LENGTH + 1));
+        Files.write(path.resolveSibling(path.getFileName() + ".part.validator"), ETAG.getBytes(StandardCharsets.UTF_8));
+        
+        WebUtils.downloadFile(server.getUrl(), path);
+        
+        assertArrayEquals(bytes, Files.readAllBytes(path));
+        List<TestHttpServer.Request> requests = server.getRequests();
+        assertEquals(2, requests.size());
+        assertEquals(416, requests.get(0).getCode());
+        assertNull(requests.get(1).getRange());
+        assertEquals(200, requests.get(1).getCode());
+        assertPartDeleted();
+    }
+    
+    @Test
+    public void failsOnPrematureEof() throws IOException {
+        byte[] bytes = createBytes(1);
+        server.setResource(bytes, null);
+        server.dropConnections(Integer.MAX_VALUE, DROP_AFTER);
+        
+        assertThrows(IOException.class, () -> WebUtils.downloadFile(server.getUrl(), path, bytes.length, sha1(bytes)));
+        
+        // Every attempt resumes where the previous one stopped, but the body is never completed
+        List<TestHttpServer.Request> requests = server.getRequests();
+        assertEquals(3, requests.size());
+        assertEquals(String.format("bytes=%s-", 2 * DROP_AFTER), requests.get(2).getRange());
+        assertFalse(Files.exists(path));
+        assertTrue(Files.size(path.resolveSibling(path.getFileName() + ".part")) < bytes.length);
+    }
+    
+    @Test
+    public void retriesServerErrorsInOneLayer() throws IOException {
+        server.setStatus(503);
+        
+        assertThrows(IOException.class, () -> WebUtils.downloadFile(server.getUrl(), path));
+        assertEquals(3, server.getRequests().size());
+        
+        assertThrows(IllegalStateException.class, () -> WebUtils.deserializeJson(server.getUrl(), Object.class));
+        assertEquals(6, server.getRequests().size());
+    }
+    
+    @Test
+    public void discardsPartOnHashMismatch() throws IOException {
+        byte[] bytes = createBytes(1);
+        server.setResource(bytes, ETAG);
+        
+        assertThrows(IllegalStateException.class, () -> WebUtils.downloadFile(server.getUrl(), path, bytes.length, sha1(createBytes(2))));
+        
+        assertFalse(Files.exists(path));
+        assertPartDeleted();
+    }
+    
+    private void assertPartDeleted() {
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".part")), "Part file was not removed");
+        assertFalse(Files.exists(path.resolveSibling(path.getFileName() + ".part.validator")), "Validator was not removed");
+    }
+    
+    private static byte[] createBytes(long seed) {
+        return createBytes(seed, LENGTH);
+    }
+    
+    private static byte[] createBytes(long seed, int length) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+    
+    private static String sha1(byte[] bytes) {
+        MessageDigest digest = HashUtils.sha1();
+        digest.update(bytes);
+        return HashUtils.toString(digest);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util.web;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import io.github.lxgaming.analysis.common.TestHttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpTransportTest {
+    
+    private TestHttpServer server;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        new Analysis(new TestConfig());
+        this.server = TestHttpServer.start();
+        server.setResource(new byte[1024], "\"v1\"");
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        server.close();
+    }
+    
+    @Test
+    public void reusesConnectionAfterUnreadBody() throws IOException {
+        // Larger than the JDK skips on close by itself, smaller than the drain limit
+        server.setResource(new byte[32 * 1024], "\"v1\"");
+        Transport transport = new HttpTransport(1000, 1000);
+        for (int index = 0; index < 2; index++) {
+            try (Response response = transport.execute(server.getUrl(), Collections.emptyMap())) {
+                assertEquals(200, response.getCode());
+            }
+        }
+        
+        List<TestHttpServer.Request> requests = server.getRequests();
+        assertEquals(2, requests.size());
+        assertEquals(requests.get(0).getRemotePort(), requests.get(1).getRemotePort(), "Connection was not reused");
+    }
+    
+    @Test
+    public void closesWithoutDrainingAfterReadTimeout() throws IOException {
+        server.setStall(5000);
+        Transport transport = new HttpTransport(1000, 1000);
+        Response response = transport.execute(server.getUrl(), Collections.emptyMap());
+        assertEquals(200, response.getCode());
+        assertThrows(SocketTimeoutException.class, () -> response.getInputStream().read());
+        
+        // Draining would wait for another read timeout of a second before giving up
+        long startTime = System.nanoTime();
+        response.close();
+        assertTrue(System.nanoTime() - startTime < TimeUnit.MILLISECONDS.toNanos(750), "Response was drained after a read timeout");
+        
+        // The failed connection is discarded rather than returned to the keep-alive cache
+        server.setStall(0);
+        try (Response nextResponse = transport.execute(server.getUrl(), Collections.emptyMap())) {
+            assertEquals(200, nextResponse.getCode());
+        }
+        
+        List<TestHttpServer.Request> requests = server.getRequests();
+        assertNotEquals(requests.get(0).getRemotePort(), requests.get(1).getRemotePort(), "Connection was reused after a read timeout");
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MemoryTransportTest {
+    
+    private URL url;
+    private MemoryTransport transport;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        this.url = new URL("http://localhost/resource");
+        this.transport = new MemoryTransport();
+        transport.register(url.toString(), "0123456789".getBytes(StandardCharsets.UTF_8), "\"v1\"");
+    }
+    
+    @Test
+    public void servesRegisteredResource() throws IOException {
+        try (Response response = transport.execute(url, Collections.emptyMap())) {
+            assertEquals(200, response.getCode());
+            assertEquals("\"v1\"", response.getHeader("etag"));
+            assertEquals(10, response.getHeaderLong("Content-Length", -1));
+            assertEquals("0123456789", read(response));
+        }
+    }
+    
+    @Test
+    public void revalidatesWithEtag() throws IOException {
+        try (Response response = transport.execute(url, Collections.singletonMap("If-None-Match", "\"v1\""))) {
+            assertEquals(304, response.getCode());
+        }
+        
+        try (Response response = transport.execute(url, Collections.singletonMap("If-None-Match", "\"v0\""))) {
+            assertEquals(200, response.getCode());
+        }
+    }
+    
+    @Test
+    public void servesRangeWhenValidatorMatches() throws IOException {
+        try (Response response = transport.execute(url, range(4, "\"v1\""))) {
+            assertEquals(206, response.getCode());
+            assertEquals("456789", read(response));
+        }
+        
+        try (Response response = transport.execute(url, range(4, "\"v0\""))) {
+            assertEquals(200, response.getCode());
+            assertEquals("0123456789", read(response));
+        }
+    }
+    
+    @Test
+    public void rejectsUnsatisfiableRange() throws IOException {
+        try (Response response = transport.execute(url, range(10, null))) {
+            assertEquals(416, response.getCode());
+        }
+    }
+    
+    @Test
+    public void returnsNotFoundForUnknownResource() throws IOException {
+        transport.unregister(url.toString());
+        try (Response response = transport.execute(url, Collections.emptyMap())) {
+            assertEquals(404, response.getCode());
+        }
+    }
+    
+    private static Map<String, String> range(long offset, String ifRange) {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Range", String.format("bytes=%s-", offset));
+        if (ifRange != null) {
+            headers.put("If-Range", ifRange);
+        }
+        
+        return headers;
+    }
+    
+    private static String read(Response response) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        InputStream inputStream = response.getInputStream();
+        byte[] buffer = new byte[16];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            outputStream.write(buffer, 0, read);
+        }
+        
+        return new String(outputStream.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
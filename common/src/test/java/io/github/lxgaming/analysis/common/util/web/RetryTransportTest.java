@@ -0,0 +1,133 @@
+/*
+ * Copyright 2021 Alex Thomson
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.github.lxgaming.analysis.common.util.web;
+
+import io.github.lxgaming.analysis.common.Analysis;
+import io.github.lxgaming.analysis.common.TestConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RetryTransportTest {
+    
+    private URL url;
+    private MemoryTransport memoryTransport;
+    
+    @BeforeEach
+    public void setUp() throws IOException {
+        new Analysis(new TestConfig());
+        this.url = new URL("http://localhost/resource");
+        this.memoryTransport = new MemoryTransport();
+        memoryTransport.register(url.toString(), "content".getBytes(StandardCharsets.UTF_8), "\"v1\"");
+    }
+    
+    @Test
+    public void retriesServerErrors() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        Transport transport = new RetryTransport((url, headers) -> {
+            if (requests.incrementAndGet() < 3) {
+                return status(503);
+            }
+            
+            return memoryTransport.execute(url, headers);
+        }, 3, 0L);
+        
+        try (Response response = transport.execute(url, Collections.emptyMap())) {
+            assertEquals(200, response.getCode());
+        }
+        
+        assertEquals(3, requests.get());
+    }
+    
+    @Test
+    public void returnsLastResponseWhenAttemptsExhausted() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        Transport transport = new RetryTransport((url, headers) -> {
+            requests.incrementAndGet();
+            return status(429);
+        }, 3, 0L);
+        
+        try (Response response = transport.execute(url, Collections.emptyMap())) {
+            assertEquals(429, response.getCode());
+        }
+        
+        assertEquals(3, requests.get());
+    }
+    
+    @Test
+    public void rethrowsLastException() {
+        AtomicInteger requests = new AtomicInteger();
+        Transport transport = new RetryTransport((url, headers) -> {
+            throw new IOException(String.format("Connection refused (%s)", requests.incrementAndGet()));
+        }, 2, 0L);
+        
+        IOException exception = assertThrows(IOException.class, () -> transport.execute(url, Collections.emptyMap()));
+        assertEquals("Connection refused (2)", exception.getMessage());
+        assertEquals(2, requests.get());
+    }
+    
+    @Test
+    public void doesNotRetryClientErrors() throws IOException {
+        AtomicInteger requests = new AtomicInteger();
+        Transport transport = new RetryTransport((url, headers) -> {
+            requests.incrementAndGet();
+            return memoryTransport.execute(new URL("http://localhost/missing"), headers);
+        }, 3, 0L);
+        
+        try (Response response = transport.execute(url, Collections.emptyMap())) {
+            assertEquals(404, response.getCode());
+        }
+        
+        assertEquals(1, requests.get());
+    }
+    
+    private static Response status(int code) {
+        return new Response() {
+            
+            @Override
+            public int getCode() {
+                return code;
+            }
+            
+            @Override
+            public String getHeader(String name) {
+                return null;
+            }
+            
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            
+            @Override
+            public void close() {
+                // no-op
+            }
+        };
+    }
+}